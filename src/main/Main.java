@@ -1,12 +1,21 @@
 package main;
 
+import main.simulation.Colony;
+import main.simulation.ColonyGenerator;
+import main.simulation.QualityReport;
 import main.simulation.Simulation;
+import main.simulation.SolutionCache;
+import main.file_manager.AffectationsReader;
 import main.file_manager.ColonyReader;
+import main.file_manager.ColonyWriter;
 import main.ui.MainMenu;
 import main.ui.FileMenu;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 
 /**
  * Initializes the program.
@@ -17,21 +26,92 @@ public class Main {
             How to use?\
             
             `java main.Main [path/to/colony/file.txt]` with 'file.txt' your colony file
+            `java main.Main path/to/colony/file.txt --top-k` if the settlers only rank their preferred resources
+            `java main.Main path/to/colony/file.txt [--top-k] --cache path/to/cache` to reuse the allocations
+            already found for this colony (and save the new ones) in the cache directory
+            `java main.Main path/to/colony/file.txt [--top-k] [--cache path/to/cache] --kernel` to reduce the colony
+            to its kernel before each dispatch
+            `java main.Main generate <n> <d> <seed> path/to/colony/file.txt [k]` to write a random colony file
+            of n settlers, with a density d of bad relations (each settler ranking its top k resources)
+            `java main.Main report path/to/colony/file.txt path/to/affectations.txt path/to/report.json [--top-k]`
+            to write the quality report of saved affectations (as CSV if the report file ends with .csv)
             """;
+    private static final String TOP_PREFERENCES_OPTION = "--top-k";
+    private static final String CACHE_OPTION = "--cache";
+    private static final String KERNEL_OPTION = "--kernel";
+    private static final int CACHE_ENTRIES = 64;
 
     public static void main(String[] args) {
         if(args.length == 0) {
             MainMenu mainMenu = new MainMenu();
             mainMenu.start();
-        } else if(args.length == 1) {
+        } else if(args[0].equals("report") && (args.length == 4 || args.length == 5)) {
+            if(args.length == 5 && !args[4].equals(TOP_PREFERENCES_OPTION)) {
+                System.out.println("Unknown option " + args[4] + HELP_MESSAGE);
+                return;
+            }
+            try(ColonyReader cr = new ColonyReader(new File(args[1]), args.length == 5);
+                AffectationsReader ar = new AffectationsReader(new File(args[2]))) {
+                Simulation simulation = cr.initSimulation();
+                ar.load(simulation);
+                QualityReport report = QualityReport.of(Colony.of(simulation));
+                report.write(new File(args[3]));
+                PrintWriter out = new PrintWriter(System.out);
+                report.print(out);
+                out.flush();
+            } catch(IllegalArgumentException e) { //including ColonyFileFormatException
+                System.out.println(e.getMessage() + HELP_MESSAGE);
+            } catch(IOException e) {
+                System.out.println("Invalid path " + e.getMessage() + HELP_MESSAGE);
+            }
+        } else if(!args[0].equals("generate") && !args[0].equals("report") && args.length <= 5) {
             String path = args[0];
-            try(ColonyReader cr = new ColonyReader(new File(path))) {
+            boolean topPreferences = false, kernelized = false;
+            String cachePath = null;
+            for(int i = 1; i < args.length; i++) {
+                if(args[i].equals(TOP_PREFERENCES_OPTION)) topPreferences = true;
+                else if(args[i].equals(KERNEL_OPTION)) kernelized = true;
+                else if(args[i].equals(CACHE_OPTION) && i+1 < args.length) cachePath = args[++i];
+                else {
+                    System.out.println("Unknown option " + args[i] + HELP_MESSAGE);
+                    return;
+                }
+            }
+            try(ColonyReader cr = new ColonyReader(new File(path), topPreferences)) {
                 Simulation simulation = cr.initSimulation();
                 FileMenu fileMenu = new FileMenu(simulation, path);
+                fileMenu.setKernelized(kernelized);
+                if(cachePath != null) {
+                    try {
+                        fileMenu.setSolutionCache(new SolutionCache(Path.of(cachePath), CACHE_ENTRIES));
+                    } catch(IOException | InvalidPathException e) {
+                        System.out.println("Cache directory " + cachePath + " invalid" + HELP_MESSAGE);
+                        return;
+                    }
+                }
                 fileMenu.start();
             } catch(IOException e) { //auto close
                 System.out.println("Path " + path + " invalid" + HELP_MESSAGE);
             }
+        } else if((args.length == 5 || args.length == 6) && args[0].equals("generate")) {
+            String path = args[4];
+            ColonyGenerator generator;
+            try { //the parameters are checked before the file is opened (and truncated)
+                generator = new ColonyGenerator(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+                generator.setSeed(Long.parseLong(args[3]));
+                if(args.length == 6) generator.setTopPreferences(Integer.parseInt(args[5]));
+            } catch(NumberFormatException e) {
+                System.out.println("Invalid number " + e.getMessage() + HELP_MESSAGE);
+                return;
+            } catch(IllegalArgumentException e) {
+                System.out.println(e.getMessage() + HELP_MESSAGE);
+                return;
+            }
+            try(ColonyWriter cw = new ColonyWriter(new File(path))) {
+                generator.write(cw);
+            } catch(IOException e) {
+                System.out.println("Path " + path + " invalid" + HELP_MESSAGE);
+            }
         } else {
             System.out.println("Too many arguments" + HELP_MESSAGE);
         }
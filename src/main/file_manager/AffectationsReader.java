@@ -0,0 +1,188 @@
+package main.file_manager;
+
+import main.model.Resource;
+import main.model.Settler;
+import main.simulation.Simulation;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A utility class for reading affectation files, as written by {@link AffectationsWriter} : one
+ * {@code settlerName:resourceName} line per settler ({@code null} for a settler without resource).
+ * <br>
+ * The file is read through a character buffer, and validated before the simulation is modified : every settler
+ * of the simulation must appear exactly once, and a resource cannot be affected twice. The settlers and resources
+ * already seen are tracked in bitsets, indexed by their position in the simulation. The lines are not split into
+ * strings : the names are looked up directly in the buffer (see {@link NameIndex}). As {@link AffectationsWriter}
+ * writes the settlers in this order, a settler is only looked up by its name if it is not at its position in the file.
+ * <br>
+ * A loaded allocation is the starting point of the repair dispatch
+ * (see {@link main.simulation.Dispatcher#repairDispatch(int)}) : the other dispatchers start over.
+ * Implements {@link AutoCloseable} to manage file resources.
+ */
+public class AffectationsReader implements AutoCloseable {
+    private final Reader reader;
+    private char[] buffer;
+    private int position, limit; //the characters read but not parsed yet
+    private int lineStart, lineEnd; //the current line, trimmed
+    private int lineIndex;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final char SEPARATOR = ':';
+    private static final String NO_RESOURCE = "null";
+
+    /**
+     * Constructs an {@link AffectationsReader} for the given file.
+     *
+     * @param file the input file to read
+     * @throws IOException if the file cannot be read
+     */
+    public AffectationsReader(File file) throws IOException {
+        this(new FileReader(file));
+    }
+
+    /**
+     * Constructs an {@link AffectationsReader} reading from the given reader.
+     *
+     * @param reader the reader providing the affectations
+     */
+    public AffectationsReader(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
+    }
+
+    /**
+     * Reads the affectations and loads them into the specified simulation, which is cleared before.
+     * If the file is invalid, the simulation is not modified.
+     *
+     * @param simulation the simulation receiving the affectations
+     * @throws IOException if an I/O error occurs while reading
+     * @throws ColonyFileFormatException if a line is invalid, names an unknown settler or resource, affects a settler
+     *                                   or a resource twice, or if a settler is missing
+     */
+    public void load(Simulation simulation) throws IOException, ColonyFileFormatException {
+        List<Settler> settlers = simulation.getSettlers();
+        List<Resource> resources = simulation.getResources();
+        NameIndex settlerIndexes = new NameIndex(settlers.stream().map(Settler::getName).toList());
+        NameIndex resourceIndexes = new NameIndex(resources.stream().map(Resource::getName).toList());
+
+        int[] affectations = new int[settlers.size()]; //the index of each resource, resolved once the file is valid
+        Arrays.fill(affectations, -1);
+        BitSet seenSettlers = new BitSet(settlers.size());
+        BitSet seenResources = new BitSet(resources.size());
+        int count = 0;
+        while(nextLine()) {
+            if(lineStart == lineEnd) continue;
+            int separator = lineStart;
+            while(separator < lineEnd && buffer[separator] != SEPARATOR) separator++;
+            if(separator == lineEnd) throw new ColonyFileFormatException("Invalid affectation '" + line() + "', expected settler:resource", lineIndex);
+
+            //the settlers are usually written in the order of the simulation : they are only looked up otherwise
+            int s = count < settlers.size() && settlerIndexes.matches(count, buffer, lineStart, separator) ? count : -1;
+            count++;
+            if(s < 0) {
+                s = settlerIndexes.indexOf(buffer, lineStart, separator);
+                if(s < 0) throw new ColonyFileFormatException("Unknown settler " + name(lineStart, separator), lineIndex);
+            }
+            if(seenSettlers.get(s)) throw new ColonyFileFormatException("Settler " + settlers.get(s).getName() + " is affected twice", lineIndex);
+            seenSettlers.set(s);
+
+            int r = resourceIndexes.indexOf(buffer, separator+1, lineEnd);
+            if(r < 0) {
+                if(NameIndex.matches(NO_RESOURCE, buffer, separator+1, lineEnd)) continue;
+                throw new ColonyFileFormatException("Unknown resource " + name(separator+1, lineEnd), lineIndex);
+            }
+            if(seenResources.get(r)) throw new ColonyFileFormatException("Resource " + resources.get(r).getName() + " is affected twice", lineIndex);
+            seenResources.set(r);
+            affectations[s] = r;
+        }
+
+        int missing = settlers.size() - seenSettlers.cardinality();
+        if(missing > 0) {
+            throw new ColonyFileFormatException("Missing affectations for " + missing + " settler(s), such as "
+                    + settlers.get(seenSettlers.nextClearBit(0)).getName());
+        }
+
+        simulation.clear();
+        for(int s = 0; s < affectations.length; s++) {
+            if(affectations[s] < 0) continue;
+            Resource resource = resources.get(affectations[s]);
+            settlers.get(s).setAffectation(resource);
+            resource.setAffected(true);
+        }
+    }
+
+    /**
+     * Reads the next line into the buffer, and trims it (see {@link String#trim()}).
+     * The line is then held by the buffer, from {@code lineStart} (included) to {@code lineEnd} (excluded).
+     *
+     * @return {@code true} if a line was read, {@code false} at the end of the file
+     * @throws IOException if an I/O error occurs while reading
+     */
+    private boolean nextLine() throws IOException {
+        int end = position;
+        while(true) {
+            while(end < limit && buffer[end] != '\n') end++;
+            if(end < limit) break;
+            //the line goes on after the characters read : they are moved to the beginning of the buffer, then more are read
+            if(position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                end -= position;
+                limit -= position;
+                position = 0;
+            } else if(limit == buffer.length) {
+                buffer = Arrays.copyOf(buffer, 2*buffer.length);
+            }
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if(read < 0) {
+                if(position == limit) return false;
+                break; //the last line has no line break
+            }
+            limit += read;
+        }
+
+        lineIndex++;
+        lineStart = position;
+        lineEnd = end;
+        position = Math.min(end + 1, limit);
+        while(lineStart < lineEnd && buffer[lineStart] <= ' ') lineStart++;
+        while(lineEnd > lineStart && buffer[lineEnd - 1] <= ' ') lineEnd--;
+        return true;
+    }
+
+    /**
+     * Retrieves the current line, for the error messages.
+     *
+     * @return the current line, trimmed
+     */
+    private String line() {
+        return name(lineStart, lineEnd);
+    }
+
+    /**
+     * Retrieves the characters of the buffer between the specified indexes, for the error messages.
+     *
+     * @param from the index of the first character (included)
+     * @param to the index of the last character (excluded)
+     * @return the characters as a string
+     */
+    private String name(int from, int to) {
+        return new String(buffer, from, to - from);
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException if an I/O error occurs while closing
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
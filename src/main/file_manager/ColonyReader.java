@@ -1,5 +1,7 @@
 package main.file_manager;
 
+import main.metrics.ColonyLoadEvent;
+import main.metrics.Metrics;
 import main.simulation.Simulation;
 import main.model.Resource;
 import main.model.Settler;
@@ -19,16 +21,23 @@ import java.util.regex.Pattern;
 /**
  * A utility class for reading and parsing colony data files, initializing
  * a simulation with settlers, resources, relationships, and preferences.
+ * <br>
+ * By default, each settler must rank all the resources. A reader can also accept top-{@code k} preferences
+ * (see {@link Simulation#setTopPreferences(boolean)}), where each settler only ranks its preferred resources.
  * Implements {@link AutoCloseable} to manage file resources.
  */
 public class ColonyReader implements AutoCloseable {
     private Simulation simulation;
     private final Scanner scanner;
+    private final boolean topPreferences;
     private String lastLine;
     private int lineIndex;
+    private int relations;
+    private final Metrics metrics;
 
     private static final Pattern ARG_REGEX = Pattern.compile("[a-z]+\\([\\w ]+\\)");
-    private static final Pattern ARGS_REGEX = Pattern.compile("[a-z]+\\(([\\w ]+,[\\w ]+)+\\)");
+    //possessive quantifiers : a line of thousands of arguments must not overflow the stack with backtracking states
+    private static final Pattern ARGS_REGEX = Pattern.compile("[a-z]+\\([\\w ]++(?:,[\\w ]++)++\\)");
     private static final Pattern MET_REGEX = Pattern.compile("[a-z]+\\(.+\\)");
 
     /**
@@ -101,11 +110,49 @@ public class ColonyReader implements AutoCloseable {
      * @throws IOException if the file cannot be read
      */
     public ColonyReader(File file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * Constructs a {@link ColonyReader} for the given file and starts parsing it.
+     *
+     * @param file           the input file to read
+     * @param topPreferences {@code true} if the settlers may only rank their top {@code k} resources,
+     *                       {@code false} if they must rank all of them
+     * @throws IOException if the file cannot be read
+     */
+    public ColonyReader(File file, boolean topPreferences) throws IOException {
+        this(file, topPreferences, Metrics.NONE);
+    }
+
+    /**
+     * Constructs a {@link ColonyReader} for the given file and starts parsing it, reporting into the given metrics
+     * the time spent in each section ({@code reader.<section>}) and the number of lines of each section
+     * ({@code reader.<section>.lines}).
+     *
+     * @param file           the input file to read
+     * @param topPreferences {@code true} if the settlers may only rank their top {@code k} resources,
+     *                       {@code false} if they must rank all of them
+     * @param metrics        the metrics
+     * @throws IOException if the file cannot be read
+     */
+    public ColonyReader(File file, boolean topPreferences, Metrics metrics) throws IOException {
         this.scanner = new Scanner(file);
+        this.topPreferences = topPreferences;
         this.lineIndex = 0;
+        this.metrics = metrics;
         scanner.useDelimiter("\\.");
 
+        ColonyLoadEvent event = new ColonyLoadEvent();
+        event.begin();
         retrieveData();
+        if(event.shouldCommit()) {
+            event.path = file.getPath();
+            event.settlers = simulation.getSettlers().size();
+            event.relations = relations;
+            event.topPreferences = topPreferences;
+            event.commit();
+        }
     }
 
     /**
@@ -153,7 +200,8 @@ public class ColonyReader implements AutoCloseable {
         if (settlersNames.isEmpty()) {
             throw new ColonyFileFormatException("Settlers should be defined first");
         }
-        settlersNames.forEach(name -> settlers.put(name, new Settler(name, settlersNames.size()))); //put settlers into the map
+        //put settlers into the map (their preferences are only allocated when they are set)
+        settlersNames.forEach(name -> settlers.put(name, new Settler(name, settlersNames.size())));
 
         //then checking RESOURCES section
         readSection(ColonyFileMethods.RESOURCES, line -> {
@@ -169,12 +217,14 @@ public class ColonyReader implements AutoCloseable {
         }
 
         this.simulation = new Simulation(settlers, resources); //create simulation
+        simulation.setTopPreferences(topPreferences);
 
         //checking optional BAD_RELATIONS section
         readSection(ColonyFileMethods.BAD_RELATIONS, line -> {
             String[] badRelation = args(line);
             if (badRelation != null && badRelation.length == 2) {
                 simulation.setBadRelations(badRelation[0], badRelation[1]);
+                relations++;
             } else throw new ColonyFileFormatException.InvalidArgumentException(ColonyFileMethods.BAD_RELATIONS, line, lineIndex);
 
         });
@@ -184,7 +234,7 @@ public class ColonyReader implements AutoCloseable {
             String[] preferences = args(line);
             if(preferences == null) throw new ColonyFileFormatException.InvalidArgumentException(ColonyFileMethods.PREFERENCES, line, lineIndex);
             int size = resources.size()+1, args = preferences.length;
-            if(args != size) throw new ColonyFileFormatException(args > size ?
+            if(args > size || (!topPreferences && args < size)) throw new ColonyFileFormatException(args > size ?
                     "Extra " + (args-size) + " argument(s) for " + line
                     : "Missing " + (size-args) + " argument(s) for " + line, lineIndex);
 
@@ -200,6 +250,8 @@ public class ColonyReader implements AutoCloseable {
      * @throws ColonyFileFormatException if the section is invalid or improperly formatted
      */
     private void readSection(ColonyFileMethods method, Consumer<String> processLine) throws ColonyFileFormatException {
+        long start = System.nanoTime();
+        int lines = 0;
         String line;
         while((line = readLine()) != null) {
             if(line.isEmpty()) continue;
@@ -207,12 +259,16 @@ public class ColonyReader implements AutoCloseable {
             //example : blabla(hello) -> blabla doesn't exist
             if(currentMethod == null) throw new ColonyFileFormatException.InvalidMethodException(line, lineIndex);
             //example : we are checking settlers section, but we found a resource method -> this is the end of the settlers section, we should push back this line and handle it in the resource section
-            if(ColonyFileMethods.next(currentMethod, method)) { pushBack(line); return; }
+            if(ColonyFileMethods.next(currentMethod, method)) { pushBack(line); break; }
             //example : we are in the settlers section, the only method accepted here are 'settlers' or 'resource', if we found i.e. the method for bad relations, this is the wrong place!
             if(currentMethod != method) throw new ColonyFileFormatException(line + " : this method should not be there!", lineIndex);
             //example : we are in the settlers section, the method found in this line is 'settler', it's perfect, we can handle it now
             processLine.accept(line);
+            lines++;
         }
+        String section = "reader." + method.name().toLowerCase();
+        metrics.time(section, System.nanoTime() - start);
+        metrics.count(section + ".lines", lines);
     }
 
     /**
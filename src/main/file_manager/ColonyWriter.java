@@ -0,0 +1,159 @@
+package main.file_manager;
+
+import main.file_manager.ColonyReader.ColonyFileMethods;
+import main.model.PreferenceOrder;
+import main.model.Resource;
+import main.model.Settler;
+import main.simulation.Simulation;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A utility class for writing colony data files, in the format read by {@link ColonyReader}.
+ * <br>
+ * Statements are written one by one through a buffer, so that a colony can be written while it is being
+ * generated, without holding the whole file in memory. The sections must be written in the order expected
+ * by the reader : settlers, resources, (optional) bad relations, then preferences.
+ * Implements {@link AutoCloseable} to manage file resources.
+ */
+public class ColonyWriter implements AutoCloseable {
+    private final Writer writer;
+    private ColonyFileMethods section;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Constructs a {@link ColonyWriter} for the given file.
+     *
+     * @param file the output file to write
+     * @throws IOException if the file cannot be created or accessed
+     */
+    public ColonyWriter(File file) throws IOException {
+        this(new FileWriter(file));
+    }
+
+    /**
+     * Constructs a {@link ColonyWriter} writing to the given writer.
+     *
+     * @param writer the writer receiving the colony data
+     */
+    public ColonyWriter(Writer writer) {
+        this.writer = new BufferedWriter(writer, BUFFER_SIZE);
+    }
+
+    /**
+     * Writes a {@code colon(settler_name).} statement.
+     *
+     * @param name the name of the settler
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void writeSettler(String name) throws IOException {
+        writeStatement(ColonyFileMethods.SETTLERS, name);
+    }
+
+    /**
+     * Writes a {@code ressource(resource_name).} statement.
+     *
+     * @param name the name of the resource
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void writeResource(String name) throws IOException {
+        writeStatement(ColonyFileMethods.RESOURCES, name);
+    }
+
+    /**
+     * Writes a {@code deteste(settler_name,settler_name).} statement.
+     *
+     * @param sn1 the name of the first settler in this <i>bad relation</i>
+     * @param sn2 the name of the second settler in this <i>bad relation</i>
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void writeBadRelation(String sn1, String sn2) throws IOException {
+        writeStatement(ColonyFileMethods.BAD_RELATIONS, sn1, sn2);
+    }
+
+    /**
+     * Writes a {@code preferences(settler_name,resource_name,...).} statement.
+     *
+     * @param settlerName      the name of the settler
+     * @param preferencesNames the resource names <b>ordered</b> by the settler's preferences
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void writePreferences(String settlerName, String... preferencesNames) throws IOException {
+        begin(ColonyFileMethods.PREFERENCES);
+        writer.write(ColonyFileMethods.PREFERENCES.getType());
+        writer.write('(');
+        writer.write(settlerName);
+        for(String name : preferencesNames) {
+            writer.write(',');
+            writer.write(name);
+        }
+        writer.write(").\n");
+    }
+
+    /**
+     * Writes the whole specified simulation : its settlers, resources, bad relations (each relation once),
+     * and the preferences of its settlers.
+     *
+     * @param simulation the simulation to write
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void write(Simulation simulation) throws IOException {
+        for(Settler settler : simulation.getSettlers()) writeSettler(settler.getName());
+        for(Resource resource : simulation.getResources()) writeResource(resource.getName());
+        for(Settler settler : simulation.getSettlers()) {
+            for(Settler enemy : settler.getBadRelations()) {
+                if(settler.getName().compareTo(enemy.getName()) < 0) writeBadRelation(settler.getName(), enemy.getName());
+            }
+        }
+        for(Settler settler : simulation.getSettlers()) {
+            PreferenceOrder preferences = settler.getPreferenceOrder();
+            String[] names = new String[preferences.length()];
+            for(int i = 0; i < names.length; i++) names[i] = preferences.get(i).getName();
+            writePreferences(settler.getName(), names);
+        }
+    }
+
+    /**
+     * Writes a statement with the specified arguments.
+     *
+     * @param method the method of the statement
+     * @param args   the arguments of the statement
+     * @throws IOException if an I/O error occurs while writing
+     */
+    private void writeStatement(ColonyFileMethods method, String... args) throws IOException {
+        begin(method);
+        writer.write(method.getType());
+        writer.write('(');
+        writer.write(String.join(",", args));
+        writer.write(").\n");
+    }
+
+    /**
+     * Checks that a statement of the specified method can be written after the previous ones.
+     *
+     * @param method the method of the next statement
+     * @throws IllegalStateException if the method cannot follow the current section
+     */
+    private void begin(ColonyFileMethods method) {
+        if(method == section) return;
+        boolean valid = section == null ? method == ColonyFileMethods.SETTLERS : ColonyFileMethods.next(method, section);
+        if(!valid) throw new IllegalStateException(method.getType() + "() cannot be written after "
+                + (section == null ? "the beginning of the file" : section.getType() + "()"));
+        section = method;
+    }
+
+    /**
+     * Flushes the buffer and closes the file.
+     *
+     * @throws IOException if an I/O error occurs while closing
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,96 @@
+package main.file_manager;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A name index maps names to their position, and looks them up directly in a slice of a character buffer : the lines
+ * of a file are not split into {@link String}s, and the positions are not boxed.
+ * <br>
+ * The characters of the names are copied one after the other into a single array, and the names are stored in an
+ * open-addressing table (linear probing), at least twice as large as the number of names. Each slot holds the hash and
+ * the position of its name, so that a lookup only compares the characters of the names of the same hash, without
+ * going through the {@link String}s.
+ */
+final class NameIndex {
+    private char[] chars;
+    private final int[] offsets; //the name i takes the characters from offsets[i] (included) to offsets[i+1] (excluded)
+    private final long[] slots; //hash (high bits) and position + 1 (low bits) of the name of each slot, 0 for an empty slot
+    private final int mask;
+
+    /**
+     * Constructs the {@link NameIndex} of the specified names.
+     * @param names the names, all distinct
+     */
+    NameIndex(List<String> names) {
+        int n = names.size();
+        this.chars = new char[Math.max(16, 8*n)];
+        this.offsets = new int[n+1];
+        int capacity = Integer.highestOneBit(Math.max(2, 2*n) - 1) << 1;
+        this.slots = new long[capacity];
+        this.mask = capacity - 1;
+
+        for(int i = 0; i < n; i++) {
+            String name = names.get(i);
+            int from = offsets[i], to = from + name.length();
+            if(to > chars.length) chars = Arrays.copyOf(chars, Math.max(to, 2*chars.length));
+            name.getChars(0, name.length(), chars, from);
+            offsets[i+1] = to;
+
+            int hash = hash(chars, from, to), slot = hash & mask;
+            while(slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = (long) hash << 32 | (i + 1);
+        }
+    }
+
+    /**
+     * Retrieves the position of the name held by the specified slice.
+     * @param buffer the characters
+     * @param from the index of the first character of the name (included)
+     * @param to the index of the last character of the name (excluded)
+     * @return the position of the name, or {@code -1} if there is no such name
+     */
+    int indexOf(char[] buffer, int from, int to) {
+        int hash = hash(buffer, from, to);
+        long entry;
+        for(int slot = hash & mask; (entry = slots[slot]) != 0; slot = (slot + 1) & mask) {
+            int i = (int) entry - 1;
+            if((int) (entry >>> 32) == hash && matches(i, buffer, from, to)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if the specified slice holds the name of the specified position.
+     * @param i the position of the name
+     * @param buffer the characters
+     * @param from the index of the first character of the slice (included)
+     * @param to the index of the last character of the slice (excluded)
+     * @return {@code true} if the slice holds the name, {@code false} otherwise
+     */
+    boolean matches(int i, char[] buffer, int from, int to) {
+        return Arrays.equals(chars, offsets[i], offsets[i+1], buffer, from, to);
+    }
+
+    /**
+     * Checks if the specified slice holds the specified name.
+     * @param name the name
+     * @param buffer the characters
+     * @param from the index of the first character of the slice (included)
+     * @param to the index of the last character of the slice (excluded)
+     * @return {@code true} if the slice holds the name, {@code false} otherwise
+     */
+    static boolean matches(String name, char[] buffer, int from, int to) {
+        if(name.length() != to - from) return false;
+        for(int i = from; i < to; i++) {
+            if(name.charAt(i - from) != buffer[i]) return false;
+        }
+        return true;
+    }
+
+    private static int hash(char[] chars, int from, int to) {
+        int h = 0;
+        for(int i = from; i < to; i++) h = 31*h + chars[i];
+        return h ^ (h >>> 16);
+    }
+}
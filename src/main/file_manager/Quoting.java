@@ -0,0 +1,34 @@
+package main.file_manager;
+
+/**
+ * A utility class for quoting strings in the machine-readable exports (JSON and CSV), such as the metrics
+ * ({@link main.metrics.MetricsRecorder}) and the quality reports ({@link main.simulation.QualityReport}).
+ */
+public final class Quoting {
+    private Quoting() {}
+
+    /**
+     * Quotes the specified string as a JSON string.
+     * @param value the string
+     * @return the JSON string
+     */
+    public static String json(String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for(char c : value.toCharArray()) {
+            if(c == '"' || c == '\\') builder.append('\\').append(c);
+            else if(c < 0x20) builder.append(String.format("\\u%04x", (int) c));
+            else builder.append(c);
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * Quotes the specified string as a CSV field, if needed.
+     * @param value the string
+     * @return the CSV field
+     */
+    public static String csv(String value) {
+        if(value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
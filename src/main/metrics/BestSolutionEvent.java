@@ -0,0 +1,52 @@
+package main.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Java Flight Recorder event emitted when a dispatch finds a new best solution.
+ * It is disabled by default : enable {@code jss.BestSolution} in the recording settings.
+ */
+@Name("jss.BestSolution")
+@Label("New Best Solution")
+@Category({"JSS", "Dispatch"})
+@Description("A dispatch finds a solution with fewer jealous settlers")
+@Enabled(false)
+@StackTrace(false)
+public final class BestSolutionEvent extends Event {
+    @Label("Dispatch")
+    public String dispatch;
+
+    @Label("Iteration")
+    public int iteration;
+
+    @Label("Jealous Settlers")
+    public int jealous;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    public long elapsed;
+
+    /**
+     * Emits a new best solution event, if enabled.
+     * @param dispatch the name of the dispatch
+     * @param iteration the iteration which found the solution
+     * @param jealous the number of jealous settlers of the solution
+     * @param elapsed the time elapsed since the beginning of the dispatch, in nanoseconds
+     */
+    public static void emit(String dispatch, int iteration, int jealous, long elapsed) {
+        BestSolutionEvent event = new BestSolutionEvent();
+        if(!event.isEnabled()) return;
+        event.dispatch = dispatch;
+        event.iteration = iteration;
+        event.jealous = jealous;
+        event.elapsed = elapsed;
+        event.commit();
+    }
+}
@@ -0,0 +1,33 @@
+package main.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event emitted when a colony file is loaded (see {@link main.file_manager.ColonyReader}).
+ * It is disabled by default : enable {@code jss.ColonyLoad} in the recording settings.
+ */
+@Name("jss.ColonyLoad")
+@Label("Colony Load")
+@Category({"JSS", "Parsing"})
+@Description("A colony file is parsed")
+@Enabled(false)
+@StackTrace(false)
+public final class ColonyLoadEvent extends Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Settlers")
+    public int settlers;
+
+    @Label("Bad Relations")
+    public int relations;
+
+    @Label("Top-k Preferences")
+    public boolean topPreferences;
+}
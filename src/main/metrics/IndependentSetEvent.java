@@ -0,0 +1,30 @@
+package main.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event emitted for each round of a MAX-LEF instance, where a set of independent settlers
+ * receives its resources. It is disabled by default : enable {@code jss.IndependentSet} in the recording settings.
+ */
+@Name("jss.IndependentSet")
+@Label("Independent Set Round")
+@Category({"JSS", "Dispatch"})
+@Description("A set of independent settlers receives its resources")
+@Enabled(false)
+@StackTrace(false)
+public final class IndependentSetEvent extends Event {
+    @Label("Instance")
+    public int instance;
+
+    @Label("Round")
+    public int round;
+
+    @Label("Settlers")
+    public int size;
+}
@@ -0,0 +1,31 @@
+package main.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event emitted for each instance of a MAX-LEF dispatch
+ * (see {@link main.simulation.Dispatcher#maxLEFDispatch(int)}).
+ * It is disabled by default : enable {@code jss.MaxLEFInstance} in the recording settings.
+ */
+@Name("jss.MaxLEFInstance")
+@Label("MAX-LEF Instance")
+@Category({"JSS", "Dispatch"})
+@Description("An instance of a MAX-LEF dispatch")
+@Enabled(false)
+@StackTrace(false)
+public final class MaxLEFInstanceEvent extends Event {
+    @Label("Instance")
+    public int instance;
+
+    @Label("Independent Sets")
+    public int independentSets;
+
+    @Label("Jealous Settlers")
+    public int jealous;
+}
@@ -0,0 +1,58 @@
+package main.metrics;
+
+/**
+ * The metrics of the dispatchers and readers : they report into an implementation of this interface where their time
+ * goes (timers per phase), how much work they do (counters, samples such as the sizes of the independent sets) and how
+ * quickly the quality of their solution converges (the best-so-far trace).
+ * <br>
+ * Every method does nothing by default, and {@link Metrics#NONE} is the default metrics of the dispatchers and readers :
+ * when the metrics are disabled, the calls are inlined into nothing. A {@link MetricsRecorder} keeps the metrics and
+ * exports them to JSON or CSV.
+ * <br>
+ * The implementations must be thread-safe, as metrics can be reported by parallel tasks.
+ */
+public interface Metrics {
+    /**
+     * The disabled metrics, which ignore everything.
+     */
+    Metrics NONE = new Metrics() {};
+
+    /**
+     * Adds a value to a counter.
+     * @param counter the name of the counter
+     * @param delta the value to add
+     */
+    default void count(String counter, long delta) {}
+
+    /**
+     * Adds the duration of a run of a phase to the timer of this phase.
+     * @param phase the name of the phase
+     * @param nanos the duration of the run, in nanoseconds
+     */
+    default void time(String phase, long nanos) {}
+
+    /**
+     * Records a sample of a distribution (for example, the size of an independent set).
+     * @param distribution the name of the distribution
+     * @param value the sample
+     */
+    default void sample(String distribution, long value) {}
+
+    /**
+     * Records a new best solution of a dispatch.
+     * @param dispatch the name of the dispatch
+     * @param iteration the iteration which found the solution (instance, switch...)
+     * @param jealous the number of jealous settlers of the solution
+     * @param elapsedNanos the time elapsed since the beginning of the dispatch, in nanoseconds
+     */
+    default void best(String dispatch, int iteration, int jealous, long elapsedNanos) {}
+
+    /**
+     * Checks if these metrics are enabled, so that the values which are only computed to be reported can be skipped
+     * otherwise.
+     * @return {@code true} if the metrics are recorded, {@code false} otherwise
+     */
+    default boolean isEnabled() {
+        return this != NONE;
+    }
+}
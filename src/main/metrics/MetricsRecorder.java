@@ -0,0 +1,220 @@
+package main.metrics;
+
+import main.file_manager.Quoting;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A metrics recorder keeps the metrics reported into it (see {@link Metrics}) : the value of each counter, the number
+ * of runs, total, minimum and maximum duration of each phase, the number, sum, minimum and maximum of each distribution,
+ * and the best-so-far trace of the dispatches.
+ * <br>
+ * The metrics can be exported to JSON ({@link MetricsRecorder#writeJson(Writer)}), or to CSV
+ * ({@link MetricsRecorder#writeCsv(Writer)} for the counters, timers and distributions,
+ * {@link MetricsRecorder#writeTraceCsv(Writer)} for the trace).
+ */
+public class MetricsRecorder implements Metrics {
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Statistics> timers = new ConcurrentHashMap<>();
+    private final Map<String, Statistics> distributions = new ConcurrentHashMap<>();
+    private final List<Best> trace = new ArrayList<>();
+
+    @Override
+    public void count(String counter, long delta) {
+        counters.computeIfAbsent(counter, name -> new LongAdder()).add(delta);
+    }
+
+    @Override
+    public void time(String phase, long nanos) {
+        timers.computeIfAbsent(phase, name -> new Statistics()).add(nanos);
+    }
+
+    @Override
+    public void sample(String distribution, long value) {
+        distributions.computeIfAbsent(distribution, name -> new Statistics()).add(value);
+    }
+
+    @Override
+    public void best(String dispatch, int iteration, int jealous, long elapsedNanos) {
+        synchronized(trace) {
+            trace.add(new Best(dispatch, iteration, jealous, elapsedNanos));
+        }
+    }
+
+    /**
+     * Retrieves the value of the specified counter.
+     * @param counter the name of the counter
+     * @return its value, or {@code 0} if nothing was counted
+     */
+    public long getCounter(String counter) {
+        LongAdder adder = counters.get(counter);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * Retrieves the number of runs of the specified phase.
+     * @param phase the name of the phase
+     * @return the number of runs, or {@code 0} if the phase was not timed
+     */
+    public long getTimerCount(String phase) {
+        Statistics statistics = timers.get(phase);
+        return statistics == null ? 0 : statistics.snapshot()[0];
+    }
+
+    /**
+     * Retrieves the number of samples of the specified distribution.
+     * @param distribution the name of the distribution
+     * @return the number of samples, or {@code 0} if nothing was sampled
+     */
+    public long getSampleCount(String distribution) {
+        Statistics statistics = distributions.get(distribution);
+        return statistics == null ? 0 : statistics.snapshot()[0];
+    }
+
+    /**
+     * Retrieves the best-so-far trace, in the order the solutions were found.
+     * @return a copy of the trace
+     */
+    public List<Best> getTrace() {
+        synchronized(trace) {
+            return List.copyOf(trace);
+        }
+    }
+
+    /**
+     * Removes every metric.
+     */
+    public void reset() {
+        counters.clear();
+        timers.clear();
+        distributions.clear();
+        synchronized(trace) {
+            trace.clear();
+        }
+    }
+
+    /**
+     * Writes the metrics as a JSON object, with the fields {@code counters} (name to value), {@code timers} and
+     * {@code distributions} (name to an object with the fields {@code count}, {@code sum}, {@code min} and {@code max},
+     * in nanoseconds for the timers), and {@code trace} (array of objects with the fields {@code dispatch},
+     * {@code iteration}, {@code jealous} and {@code elapsedNanos}).
+     * @param writer the writer
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void writeJson(Writer writer) throws IOException {
+        writer.write("{\n  \"counters\": {");
+        String separator = "";
+        for(Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+            writer.write(separator + "\n    " + Quoting.json(entry.getKey()) + ": " + entry.getValue().sum());
+            separator = ",";
+        }
+        writer.write("\n  },\n  \"timers\": ");
+        writeJson(writer, timers);
+        writer.write(",\n  \"distributions\": ");
+        writeJson(writer, distributions);
+        writer.write(",\n  \"trace\": [");
+        separator = "";
+        for(Best best : getTrace()) {
+            writer.write(separator + "\n    {\"dispatch\": " + Quoting.json(best.dispatch()) + ", \"iteration\": " + best.iteration()
+                    + ", \"jealous\": " + best.jealous() + ", \"elapsedNanos\": " + best.elapsedNanos() + "}");
+            separator = ",";
+        }
+        writer.write("\n  ]\n}\n");
+        writer.flush();
+    }
+
+    /**
+     * Writes the specified statistics as a JSON object.
+     * @param writer the writer
+     * @param statistics the statistics, by name
+     * @throws IOException if an I/O error occurs while writing
+     */
+    private static void writeJson(Writer writer, Map<String, Statistics> statistics) throws IOException {
+        writer.write("{");
+        String separator = "";
+        for(Map.Entry<String, Statistics> entry : new TreeMap<>(statistics).entrySet()) {
+            long[] values = entry.getValue().snapshot();
+            writer.write(separator + "\n    " + Quoting.json(entry.getKey()) + ": {\"count\": " + values[0] + ", \"sum\": " + values[1]
+                    + ", \"min\": " + values[2] + ", \"max\": " + values[3] + "}");
+            separator = ",";
+        }
+        writer.write("\n  }");
+    }
+
+    /**
+     * Writes the counters, timers and distributions as CSV, with the header {@code kind,name,count,sum,min,max}
+     * (a counter only has a {@code count}, its value).
+     * @param writer the writer
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write("kind,name,count,sum,min,max\n");
+        for(Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+            writer.write("counter," + Quoting.csv(entry.getKey()) + "," + entry.getValue().sum() + ",,,\n");
+        }
+        writeCsv(writer, "timer", timers);
+        writeCsv(writer, "distribution", distributions);
+        writer.flush();
+    }
+
+    /**
+     * Writes the specified statistics as CSV rows.
+     * @param writer the writer
+     * @param kind the kind of the statistics
+     * @param statistics the statistics, by name
+     * @throws IOException if an I/O error occurs while writing
+     */
+    private static void writeCsv(Writer writer, String kind, Map<String, Statistics> statistics) throws IOException {
+        for(Map.Entry<String, Statistics> entry : new TreeMap<>(statistics).entrySet()) {
+            long[] values = entry.getValue().snapshot();
+            writer.write(kind + "," + Quoting.csv(entry.getKey()) + "," + values[0] + "," + values[1] + "," + values[2] + "," + values[3] + "\n");
+        }
+    }
+
+    /**
+     * Writes the best-so-far trace as CSV, with the header {@code dispatch,iteration,jealous,elapsed_ns}.
+     * @param writer the writer
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void writeTraceCsv(Writer writer) throws IOException {
+        writer.write("dispatch,iteration,jealous,elapsed_ns\n");
+        for(Best best : getTrace()) {
+            writer.write(Quoting.csv(best.dispatch()) + "," + best.iteration() + "," + best.jealous() + "," + best.elapsedNanos() + "\n");
+        }
+        writer.flush();
+    }
+
+    /**
+     * A new best solution of a dispatch (see {@link Metrics#best(String, int, int, long)}).
+     * @param dispatch the name of the dispatch
+     * @param iteration the iteration which found the solution
+     * @param jealous the number of jealous settlers of the solution
+     * @param elapsedNanos the time elapsed since the beginning of the dispatch, in nanoseconds
+     */
+    public record Best(String dispatch, int iteration, int jealous, long elapsedNanos) {}
+
+    /**
+     * The number, sum, minimum and maximum of the values of a timer or distribution.
+     */
+    private static final class Statistics {
+        private long count, sum, min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+
+        synchronized void add(long value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        synchronized long[] snapshot() {
+            return new long[]{count, sum, count == 0 ? 0 : min, count == 0 ? 0 : max};
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package main.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event emitted when a switch of resources between two settlers is kept by a switch or repair
+ * dispatch. It is disabled by default : enable {@code jss.Switch} in the recording settings.
+ */
+@Name("jss.Switch")
+@Label("Accepted Switch")
+@Category({"JSS", "Dispatch"})
+@Description("A switch of resources lowering the number of jealous settlers")
+@Enabled(false)
+@StackTrace(false)
+public final class SwitchEvent extends Event {
+    @Label("Dispatch")
+    public String dispatch;
+
+    @Label("Settler")
+    public int settler;
+
+    @Label("Enemy")
+    public int enemy;
+
+    @Label("Jealous Settlers")
+    public int jealous;
+
+    /**
+     * Emits a switch event, if enabled.
+     * @param dispatch the name of the dispatch
+     * @param settler the index of the settler
+     * @param enemy the index of the enemy it switched its resource with
+     * @param jealous the number of jealous settlers after the switch
+     */
+    public static void emit(String dispatch, int settler, int enemy, int jealous) {
+        SwitchEvent event = new SwitchEvent();
+        if(!event.isEnabled()) return;
+        event.dispatch = dispatch;
+        event.settler = settler;
+        event.enemy = enemy;
+        event.jealous = jealous;
+        event.commit();
+    }
+}
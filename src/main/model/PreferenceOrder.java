@@ -0,0 +1,205 @@
+package main.model;
+
+import java.util.Arrays;
+
+/**
+ * An order of preference ranks resources, from the preferred one. It is stored as the positions of the resources in a
+ * table of resources shared by the orders of a colony (see {@link main.simulation.Simulation}), in the narrowest
+ * primitive type for the size of the table : {@code byte} up to {@code 256} resources, {@code char} up to
+ * {@code 65 536}, {@code int} beyond. For most colonies, a rank takes 2 bytes instead of a reference to a
+ * {@link Resource}, and the order is the only copy of the preferences : the compact colony of the dispatchers reads
+ * the same rows.
+ * <br>
+ * An order is immutable. Two orders are equal if they rank the same positions of the same table, so that identical
+ * orders can be shared by the settlers submitting them.
+ */
+public abstract class PreferenceOrder {
+    private final Resource[] table;
+    private int hash;
+
+    private PreferenceOrder(Resource[] table) {
+        this.table = table;
+    }
+
+    /**
+     * Constructs the order of the specified resources, which are their own table. The array is not copied,
+     * and must not be modified.
+     * @param resources the resources, in order of preference
+     * @return the order of these resources
+     */
+    public static PreferenceOrder of(Resource... resources) {
+        return new Identity(resources);
+    }
+
+    /**
+     * Constructs the order of the resources at the specified positions of the specified table.
+     * @param table the table of resources, shared by the orders of a colony, which must not be modified
+     * @param positions the positions of the resources in the table, in order of preference
+     * @return the order of these resources
+     */
+    public static PreferenceOrder of(Resource[] table, int[] positions) {
+        if(table.length <= 1 << Byte.SIZE) return new Bytes(table, positions);
+        if(table.length <= 1 << Character.SIZE) return new Chars(table, positions);
+        return new Ints(table, positions);
+    }
+
+    /**
+     * Retrieves the table of resources of this order. The returned array must not be modified.
+     * @return the table of resources
+     */
+    public Resource[] getTable() {
+        return table;
+    }
+
+    /**
+     * Retrieves the number of resources this order ranks.
+     * @return the number of ranked resources
+     */
+    public abstract int length();
+
+    /**
+     * Retrieves the position in the table of the resource of the specified rank.
+     * @param rank the rank, lower than {@link PreferenceOrder#length()} ({@code 0} is the top choice)
+     * @return the position of the resource in the table
+     */
+    public abstract int position(int rank);
+
+    /**
+     * Retrieves the resource of the specified rank.
+     * @param rank the rank, lower than {@link PreferenceOrder#length()} ({@code 0} is the top choice)
+     * @return the resource
+     */
+    public Resource get(int rank) {
+        return table[position(rank)];
+    }
+
+    /**
+     * Retrieves the rank of the specified resource, if it is among the first ranks of this order.
+     * The search is linear, as in an array of resources.
+     * @param resource the resource
+     * @param limit the number of ranks to search
+     * @return the rank of the resource, or {@code -1} if it is not ranked before {@code limit}
+     */
+    public int rankOf(Resource resource, int limit) {
+        limit = Math.min(limit, length());
+        for(int rank = 0; rank < limit; rank++) {
+            if(get(rank) == resource) return rank;
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieves the resources of this order, as a new array.
+     * @return the resources, in order of preference
+     */
+    public Resource[] toArray() {
+        Resource[] resources = new Resource[length()];
+        for(int rank = 0; rank < resources.length; rank++) resources[rank] = get(rank);
+        return resources;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof PreferenceOrder other) || table != other.table || length() != other.length()
+                || hashCode() != other.hashCode()) return false;
+        for(int rank = 0; rank < length(); rank++) {
+            if(position(rank) != other.position(rank)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if(h == 0) {
+            h = System.identityHashCode(table);
+            for(int rank = 0; rank < length(); rank++) h = 31*h + position(rank);
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private static final class Identity extends PreferenceOrder {
+        private final int length;
+
+        Identity(Resource[] resources) {
+            super(resources);
+            this.length = resources.length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public int position(int rank) {
+            return rank;
+        }
+    }
+
+    private static final class Bytes extends PreferenceOrder {
+        private final byte[] positions;
+
+        Bytes(Resource[] table, int[] positions) {
+            super(table);
+            this.positions = new byte[positions.length];
+            for(int i = 0; i < positions.length; i++) this.positions[i] = (byte) positions[i];
+        }
+
+        @Override
+        public int length() {
+            return positions.length;
+        }
+
+        @Override
+        public int position(int rank) {
+            return positions[rank] & 0xFF;
+        }
+    }
+
+    private static final class Chars extends PreferenceOrder {
+        private final char[] positions;
+
+        Chars(Resource[] table, int[] positions) {
+            super(table);
+            this.positions = new char[positions.length];
+            for(int i = 0; i < positions.length; i++) this.positions[i] = (char) positions[i];
+        }
+
+        @Override
+        public int length() {
+            return positions.length;
+        }
+
+        @Override
+        public int position(int rank) {
+            return positions[rank];
+        }
+    }
+
+    private static final class Ints extends PreferenceOrder {
+        private final int[] positions;
+
+        Ints(Resource[] table, int[] positions) {
+            super(table);
+            this.positions = positions.clone();
+        }
+
+        @Override
+        public int length() {
+            return positions.length;
+        }
+
+        @Override
+        public int position(int rank) {
+            return positions[rank];
+        }
+    }
+}
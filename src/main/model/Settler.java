@@ -6,7 +6,9 @@ import java.util.*;
  * A <i>settler</i> represents an agent in the assignment problem. It has :
  * <ul>
  * <li> a unique name
- * <li> an ordered list of resources (see {@link main.simulation.Simulation})
+ * <li> an ordered list of resources (see {@link main.simulation.Simulation}), which may only rank its top {@code k}
+ * resources : the resources it does not rank are tied last. It is stored as a {@link PreferenceOrder}, which may be
+ * shared with the settlers submitting the same order
  * <li> a list of settlers he doesn't like (called <i>bad relations</i>)
  * <li> a unique affectation
  * </ul>
@@ -16,9 +18,10 @@ import java.util.*;
 public class Settler {
     private String name;
     private Set<Settler> badRelations;
-    private Resource[] preferences;
+    private PreferenceOrder preferences;
     private Resource affectation;
     private int affectationRank;
+    private int cursor;
 
     /**
      * Constructs an {@link Settler} with the specified name, <i>bad relations</i>, and preferences.
@@ -27,6 +30,16 @@ public class Settler {
      * @param preferences an array of {@link Resource} representing the ordered preferences of this settler
      */
     public Settler(String name, Set<Settler> badRelations, Resource[] preferences) {
+        this(name, badRelations, PreferenceOrder.of(preferences));
+    }
+
+    /**
+     * Constructs an {@link Settler} with the specified name, <i>bad relations</i>, and order of preference.
+     * @param name the name of the settler
+     * @param badRelations a {@link Set} of {@link Settler} containing all the other settlers it doesn't like
+     * @param preferences the order of preference of this settler, or {@code null} if it has no preferences yet
+     */
+    public Settler(String name, Set<Settler> badRelations, PreferenceOrder preferences) {
         this.name = name;
         this.badRelations = badRelations;
         this.preferences = preferences;
@@ -44,12 +57,14 @@ public class Settler {
     }
 
     /**
-     * Constructs an {@link Settler} with the specified name.
-     * By default, this settler doesn't have any <i>bad relations</i> or preferences.
+     * Constructs an {@link Settler} with the specified name, in a colony of {@code n} resources.
+     * By default, this settler doesn't have any <i>bad relations</i> or preferences : nothing is allocated for
+     * its preferences until they are set.
      * @param name the name of the settler
+     * @param n the number of resources of the colony
      */
     public Settler(String name, int n) {
-        this(name, new HashSet<>(), new Resource[n]);
+        this(name, new HashSet<>(), (PreferenceOrder) null);
     }
 
     /**
@@ -76,12 +91,38 @@ public class Settler {
     public void setAffectation(Resource affectation) {
         this.affectation = affectation;
         if(affectation == null) this.affectationRank = -1;
-        else this.affectationRank = Arrays.asList(preferences).indexOf(affectation);
+        else this.affectationRank = rankOf(affectation);
+    }
+
+    /**
+     * Retrieves the rank of the specified resource according to this settler's preferences.
+     * A resource the settler does not rank (top-{@code k} preferences) is tied last, with the rank {@code k}.
+     * @param resource the resource
+     * @return the rank of the resource, or -1 if this settler has no preferences
+     */
+    private int rankOf(Resource resource) {
+        if(preferences == null) return -1;
+        int rank = preferences.rankOf(resource, preferences.length());
+        if(rank < 0 && preferences.length() > 0) return preferences.length();
+        return rank;
+    }
+
+    /**
+     * Sets the {@link Resource} affected to the settler, when its rank in the settler's preferences is already known.
+     * This avoids looking for the resource in the preferences.
+     * @param affectation the settler affectation
+     * @param rank the rank of the resource according to the settler's preferences
+     */
+    public void setAffectation(Resource affectation, int rank) {
+        this.affectation = affectation;
+        this.affectationRank = rank;
     }
 
     /**
      * Retrieves the affectation rank, i.e. the rank of the resource affected to this settler (according to its preferences).
      * If this settler has no preferences when a resource is affected to it, then this method returns -1.
+     * If this settler only ranks its top {@code k} resources and the resource is not one of them,
+     * then this method returns {@code k}.
      * @return the settler affectation rank
      */
     public int getAffectationRank() { return affectationRank; }
@@ -119,10 +160,19 @@ public class Settler {
     }
 
     /**
-     * Retrieves the {@link Resource} array of this settler's preferences.
-     * @return the settler's preferences
+     * Retrieves the {@link Resource} array of this settler's preferences, as a new array built from its order of
+     * preference (see {@link Settler#getPreferenceOrder()}).
+     * @return the settler's preferences (empty if it has no preferences)
      */
     public Resource[] getPreferences() {
+        return preferences == null ? new Resource[0] : preferences.toArray();
+    }
+
+    /**
+     * Retrieves the order of preference of this settler.
+     * @return the settler's order of preference, or {@code null} if it has no preferences
+     */
+    public PreferenceOrder getPreferenceOrder() {
         return preferences;
     }
 
@@ -135,7 +185,42 @@ public class Settler {
      * @param preferences the settler's preferences
      */
     public void setPreferences(Resource[] preferences) {
+        setPreferences(PreferenceOrder.of(preferences));
+    }
+
+    /**
+     * Sets the settler's order of preference.
+     * @param preferences the settler's order of preference
+     * @see Settler#setPreferences(Resource[])
+     */
+    public void setPreferences(PreferenceOrder preferences) {
         this.preferences = preferences;
+        this.cursor = 0;
+    }
+
+    /**
+     * Retrieves this settler's preferred resource among the resources that are not affected yet.
+     * <br>
+     * The search starts from a cursor on the preferences, which only moves forward : as long as affected resources
+     * are not released, the resources skipped by a previous call are never checked again, so that successive calls
+     * cost {@code O(n)} in total instead of {@code O(n)} each.
+     * If resources are released (for example when the simulation is cleared), {@link Settler#resetCursor()}
+     * must be called.
+     * @return the preferred available resource, or {@code null} if every resource of the preferences is affected
+     * (with top-{@code k} preferences, any unranked resource is then as good as another,
+     * see {@link main.simulation.Simulation#getFirstAvailable()})
+     */
+    public Resource getBestAvailable() {
+        int length = preferences == null ? 0 : preferences.length();
+        while(cursor < length && preferences.get(cursor).isAffected()) cursor++;
+        return cursor < length ? preferences.get(cursor) : null;
+    }
+
+    /**
+     * Resets the cursor used by {@link Settler#getBestAvailable()} to the top of the preferences.
+     */
+    public void resetCursor() {
+        this.cursor = 0;
     }
 
     /**
@@ -145,8 +230,12 @@ public class Settler {
      * @return {@code true} if the settler's preferences are valid, {@code false} otherwise
      */
     public boolean checkPreferences(int n) {
+        if(preferences == null) {
+            System.out.println("Settler " + name + " : no preferences set");
+            return false;
+        }
         try {
-            return Set.of(preferences).size() == n;
+            return Set.of(preferences.toArray()).size() == n;
         } catch(NullPointerException ne) {
             System.out.println("Settler " + name + " : no preferences set");
             return false;
@@ -156,20 +245,46 @@ public class Settler {
         }
     }
 
+    /**
+     * Checks whether the settler's top-{@code k} preferences are valid, i.e. whether the settler
+     * ranks between {@code 1} and {@code n} distinct resources ({@link Resource}).
+     * @param n the number of resources in the colony
+     * @return {@code true} if the settler's preferences are valid, {@code false} otherwise
+     */
+    public boolean checkTopPreferences(int n) {
+        int length = preferences == null ? 0 : preferences.length();
+        if(length == 0 || length > n) {
+            System.out.println("Settler " + name + " : " + length + " preferences for " + n + " resources");
+            return false;
+        }
+        return checkPreferences(length);
+    }
+
     /**
      * Check if the settler is jealous of another (one is enough).
+     * With top-{@code k} preferences, a settler holding an unranked resource is jealous of an enemy holding
+     * any ranked resource, but not of an enemy holding another unranked resource.
      * @return {@code true} if the settler is jealous, {@code false} otherwise
      */
     public boolean isJealous() {
-        if(affectation != null) {
-            List<Resource> dreams = Arrays.asList(preferences).subList(0, affectationRank);
-            return badRelations.stream().anyMatch(enemy -> dreams.contains(enemy.getAffectation()));
+        if(affectation != null && preferences != null) {
+            for(Settler enemy : badRelations) {
+                Resource resource = enemy.getAffectation();
+                if(resource != null && preferences.rankOf(resource, affectationRank) >= 0) return true;
+            }
         }
         return false;
     }
 
     @Override
     public String toString() {
-        return name + " | P : " + Arrays.toString(preferences) + " | R : " + affectation + " | J : " + badRelations.stream().map(Settler::getName).toList();
+        StringBuilder builder = new StringBuilder(name).append(" | P : ").append(Arrays.toString(getPreferences()))
+                .append(" | R : ").append(affectation).append(" | J : [");
+        String separator = "";
+        for(Settler enemy : badRelations) {
+            builder.append(separator).append(enemy.name);
+            separator = ", ";
+        }
+        return builder.append(']').toString();
     }
 }
@@ -0,0 +1,95 @@
+package main.simulation;
+
+import java.util.Random;
+
+/**
+ * An adaptive order chooses the running order of each MAX-LEF instance using the results of the previous ones,
+ * instead of a blind shuffle (see {@link Dispatcher.Ordering#ADAPTIVE}).
+ * <br>
+ * It keeps the best order found so far, with the settlers that were still jealous in its solution.
+ * The next order is this best order where the jealous settlers are moved to the end (they leave the resources
+ * they were taking to the others), slightly perturbed by a few random swaps.
+ * An order as good as the best one replaces it, so that the search can move across orders of equal quality.
+ */
+class AdaptiveOrder {
+    private final int[] bestOrder;
+    private final boolean[] jealous;
+    private int min;
+
+    /**
+     * Constructs an {@link AdaptiveOrder} for the specified number of settlers.
+     * @param n the number of settlers in the colony (indexes are from {@code 0} to {@code n-1})
+     * @param size the number of settlers in the order
+     */
+    AdaptiveOrder(int n, int size) {
+        this.bestOrder = new int[size];
+        this.jealous = new boolean[n];
+        this.min = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Computes the order of the next instance.
+     * @param order the order to compute, holding the order of the previous instance
+     * @param random the source of randomness
+     */
+    void next(int[] order, Random random) {
+        if(min == Integer.MAX_VALUE || order.length == 0) {
+            Dispatcher.shuffle(order, random);
+            return;
+        }
+
+        //jealous settlers are moved to the end, keeping the relative order
+        int k = 0;
+        for(int s : bestOrder) if(!jealous[s]) order[k++] = s;
+        for(int s : bestOrder) if(jealous[s]) order[k++] = s;
+
+        int swaps = Math.max(1, order.length/100);
+        for(int i = 0; i < swaps; i++) {
+            int a = random.nextInt(order.length), b = random.nextInt(order.length);
+            int tmp = order[a];
+            order[a] = order[b];
+            order[b] = tmp;
+        }
+    }
+
+    /**
+     * Gives the result of an instance to this adaptive order.
+     * @param order the order of the instance
+     * @param assignment the assignment computed by the instance
+     * @param j the number of jealous settlers of this assignment
+     * @return {@code true} if the order was kept, and the jealousy of its settlers checked again, {@code false} otherwise
+     */
+    boolean feedback(int[] order, Assignment assignment, int j) {
+        if(j > min) return false;
+        min = j;
+        System.arraycopy(order, 0, bestOrder, 0, order.length);
+        for(int s : order) jealous[s] = assignment.isJealous(s);
+        return true;
+    }
+
+    /**
+     * Saves the state of this adaptive order, to resume a dispatch (see {@link Checkpoint}).
+     * @return the best number of jealous settlers, the best order, then for each settler {@code 1} if it was jealous
+     */
+    int[] state() {
+        int[] state = new int[1 + bestOrder.length + jealous.length];
+        state[0] = min;
+        System.arraycopy(bestOrder, 0, state, 1, bestOrder.length);
+        for(int s = 0; s < jealous.length; s++) state[1 + bestOrder.length + s] = jealous[s] ? 1 : 0;
+        return state;
+    }
+
+    /**
+     * Restores a state of this adaptive order.
+     * @param state the state, as given by {@link AdaptiveOrder#state()}
+     * @throws IllegalArgumentException if the state does not match the size of this adaptive order
+     */
+    void restore(int[] state) {
+        if(state.length != 1 + bestOrder.length + jealous.length) {
+            throw new IllegalArgumentException("The state does not match the size of the order");
+        }
+        min = state[0];
+        System.arraycopy(state, 1, bestOrder, 0, bestOrder.length);
+        for(int s = 0; s < jealous.length; s++) jealous[s] = state[1 + bestOrder.length + s] != 0;
+    }
+}
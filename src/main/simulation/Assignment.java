@@ -0,0 +1,201 @@
+package main.simulation;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * An assignment is the state of a resource allocation over a {@link Colony} : which resource each settler holds.
+ * <br>
+ * Every entry is stamped with the <i>epoch</i> it was written in. Clearing the assignment only starts a new epoch,
+ * so that every entry written before becomes invalid at once : {@link Assignment#clear()} is {@code O(1)}
+ * whatever the size of the colony.
+ * <br>
+ * An assignment can be saved in and restored from a compact {@code int[]} snapshot,
+ * which is how the {@link Dispatcher} keeps track of its best solution.
+ */
+public class Assignment {
+    private final Colony colony;
+    private final int[] resourceOf;
+    private final int[] settlerEpochs;
+    private final int[] resourceEpochs;
+    private final int[] cursors;
+    private final int[] cursorEpochs;
+    private int available;
+    private int availableEpoch;
+    private int epoch;
+    private int assigned;
+
+    /**
+     * Constructs an empty {@link Assignment} for the specified colony.
+     * @param colony the colony
+     */
+    public Assignment(Colony colony) {
+        int n = colony.size();
+        this.colony = colony;
+        this.resourceOf = new int[n];
+        this.settlerEpochs = new int[n];
+        this.resourceEpochs = new int[colony.resourceCount()];
+        this.cursors = new int[n];
+        this.cursorEpochs = new int[n];
+        this.epoch = 1;
+        this.assigned = 0;
+    }
+
+    /**
+     * Retrieves the colony of this assignment.
+     * @return the colony
+     */
+    public Colony getColony() {
+        return colony;
+    }
+
+    /**
+     * Clears the assignment, i.e. no settler has a resource anymore and every resource is available.
+     */
+    public void clear() {
+        if(epoch == Integer.MAX_VALUE) {
+            //stamps would overflow, so really clear them (once every 2^31 clears)
+            Arrays.fill(settlerEpochs, 0);
+            Arrays.fill(resourceEpochs, 0);
+            Arrays.fill(cursorEpochs, 0);
+            availableEpoch = 0;
+            epoch = 0;
+        }
+        epoch++;
+        assigned = 0;
+    }
+
+    /**
+     * Affects the specified resource to the specified settler. The resource should be available and the settler
+     * should not have any resource yet.
+     * @param s the index of the settler
+     * @param r the index of the resource
+     */
+    public void affect(int s, int r) {
+        resourceOf[s] = r;
+        settlerEpochs[s] = epoch;
+        resourceEpochs[r] = epoch;
+        assigned++;
+    }
+
+    /**
+     * Switches the resources of the two specified settlers. Both settlers should have a resource.
+     * @param p the index of the first settler
+     * @param q the index of the second settler
+     */
+    public void swap(int p, int q) {
+        int r = resourceOf[p];
+        resourceOf[p] = resourceOf[q];
+        resourceOf[q] = r;
+    }
+
+    /**
+     * Indicates whether the specified resource is affected to a settler.
+     * @param r the index of the resource
+     * @return {@code true} if the resource is affected, {@code false} otherwise
+     */
+    public boolean isAffected(int r) {
+        return resourceEpochs[r] == epoch;
+    }
+
+    /**
+     * Retrieves the resource affected to the specified settler.
+     * @param s the index of the settler
+     * @return the index of its resource, or {@code -1} if it has none
+     */
+    public int resourceOf(int s) {
+        return settlerEpochs[s] == epoch ? resourceOf[s] : -1;
+    }
+
+    /**
+     * Retrieves the specified settler's preferred resource among the resources that are not affected yet.
+     * As in {@link main.model.Settler#getBestAvailable()}, the search starts from a cursor which only moves forward
+     * during an epoch, and which is reset when the assignment is cleared.
+     * <br>
+     * If the settler only ranks its top {@code k} resources and they are all affected, any available resource is
+     * as good as another (they are tied last) : the first available one is returned.
+     * @param s the index of the settler
+     * @return the index of the preferred available resource, or {@code -1} if there is none
+     */
+    public int bestAvailable(int s) {
+        int count = colony.preferenceCount(s);
+        int c = cursorEpochs[s] == epoch ? cursors[s] : 0;
+        while(c < count && isAffected(colony.preference(s, c))) c++;
+        cursors[s] = c;
+        cursorEpochs[s] = epoch;
+        return c < count ? colony.preference(s, c) : firstAvailable();
+    }
+
+    /**
+     * Retrieves the first resource that is not affected yet. As resources are never released during an epoch,
+     * the search starts from a cursor which only moves forward during an epoch.
+     * @return the index of the first available resource, or {@code -1} if there is none
+     */
+    private int firstAvailable() {
+        int r = availableEpoch == epoch ? available : 0;
+        while(r < resourceEpochs.length && isAffected(r)) r++;
+        available = r;
+        availableEpoch = epoch;
+        return r < resourceEpochs.length ? r : -1;
+    }
+
+    /**
+     * Checks if the specified settler is jealous of one of its enemies.
+     * @param s the index of the settler
+     * @return {@code true} if the settler is jealous, {@code false} otherwise
+     */
+    public boolean isJealous(int s) {
+        int r = resourceOf(s);
+        if(r < 0) return false;
+        int rank = colony.rank(s, r);
+        for(int enemy : colony.enemies(s)) {
+            int er = resourceOf(enemy);
+            if(er >= 0 && colony.rank(s, er) < rank) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves the number of jealous settlers in the colony.
+     * <br>
+     * For large colonies (see {@link Simulation#PARALLEL_THRESHOLD}), the settlers are checked in parallel, over ranges
+     * of indexes : the assignment is only read, and each range gives its own count.
+     * @return the number of jealous settlers
+     */
+    public int getJealousNumber() {
+        if(colony.relationCount() >= Simulation.PARALLEL_THRESHOLD) {
+            return (int) IntStream.range(0, resourceOf.length).parallel().filter(this::isJealous).count();
+        }
+        int sum = 0;
+        for(int s = 0; s < resourceOf.length; s++) {
+            if(isJealous(s)) sum++;
+        }
+        return sum;
+    }
+
+    /**
+     * Saves this assignment into the specified snapshot.
+     * @param snapshot an array of size {@code n}, receiving for each settler the index of its resource
+     *                 (or {@code -1} if it has none)
+     */
+    public void snapshot(int[] snapshot) {
+        if(assigned == resourceOf.length) {
+            System.arraycopy(resourceOf, 0, snapshot, 0, resourceOf.length);
+        } else {
+            for(int s = 0; s < resourceOf.length; s++) snapshot[s] = resourceOf(s);
+        }
+    }
+
+    /**
+     * Clears this assignment, then restores the specified snapshot.
+     * @param snapshot an array of size {@code n} holding for each settler the index of its resource
+     *                 (or {@code -1} if it has none)
+     * @see Assignment#snapshot(int[])
+     */
+    public void restore(int[] snapshot) {
+        clear();
+        for(int s = 0; s < snapshot.length; s++) {
+            if(snapshot[s] >= 0) affect(s, snapshot[s]);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package main.simulation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A checkpoint is the state of an iterative dispatch after a number of iterations (see
+ * {@link Dispatcher#setCheckpoint(java.io.File, int)}) : the iteration to run next, the state of its
+ * {@link StatefulRandom}, the best number of jealous settlers, and the arrays the dispatch needs to go on
+ * (best or current assignment, running order...).
+ * <br>
+ * It is stored in a compact binary file (big-endian) : the magic number {@code JSSC}, the version of the format,
+ * the algorithm, the size of the colony, the iteration, the state of the random, the minimum, then the arrays
+ * (each one as its length followed by its entries).
+ */
+final class Checkpoint {
+    /**
+     * The algorithms which can be checkpointed.
+     */
+    enum Algorithm { SWITCH, MAX_LEF }
+
+    private static final int MAGIC = 0x4A535343;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * Integer.BYTES + Byte.BYTES + Long.BYTES + 2 * Integer.BYTES;
+
+    final Algorithm algorithm;
+    final int n;
+    final int iteration;
+    final long random;
+    final int min;
+    final int[][] arrays;
+
+    /**
+     * Constructs a {@link Checkpoint}. The arrays are not copied.
+     * @param algorithm the algorithm of the dispatch
+     * @param n the number of settlers in the colony
+     * @param iteration the iteration to run next
+     * @param random the state of the random of the dispatch
+     * @param min the best number of jealous settlers so far
+     * @param arrays the arrays of the dispatch
+     */
+    Checkpoint(Algorithm algorithm, int n, int iteration, long random, int min, int[]... arrays) {
+        this.algorithm = algorithm;
+        this.n = n;
+        this.iteration = iteration;
+        this.random = random;
+        this.min = min;
+        this.arrays = arrays;
+    }
+
+    /**
+     * Encodes this checkpoint in the binary format.
+     * @return the bytes of the checkpoint file
+     */
+    byte[] toBytes() {
+        int size = HEADER_SIZE;
+        for(int[] array : arrays) size += Integer.BYTES * (1 + array.length);
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(VERSION).put((byte) algorithm.ordinal()).putInt(n).putInt(iteration)
+                .putLong(random).putInt(min).putInt(arrays.length);
+        for(int[] array : arrays) {
+            buffer.putInt(array.length);
+            buffer.asIntBuffer().put(array);
+            buffer.position(buffer.position() + Integer.BYTES * array.length);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Reads a checkpoint file.
+     * @param path the path of the file
+     * @return the checkpoint
+     * @throws IOException if the file cannot be read, or is not a checkpoint file
+     */
+    static Checkpoint read(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        try {
+            if(buffer.getInt() != MAGIC) throw new IOException(path + " is not a checkpoint file");
+            int version = buffer.getInt();
+            if(version != VERSION) throw new IOException("Unsupported checkpoint version " + version);
+            Algorithm algorithm = Algorithm.values()[buffer.get()];
+            int n = buffer.getInt(), iteration = buffer.getInt();
+            long random = buffer.getLong();
+            int min = buffer.getInt();
+            int[][] arrays = new int[buffer.getInt()][];
+            for(int i = 0; i < arrays.length; i++) {
+                arrays[i] = new int[buffer.getInt()];
+                buffer.asIntBuffer().get(arrays[i]);
+                buffer.position(buffer.position() + Integer.BYTES * arrays[i].length);
+            }
+            return new Checkpoint(algorithm, n, iteration, random, min, arrays);
+        } catch(RuntimeException e) {
+            throw new IOException(path + " is not a valid checkpoint file", e);
+        }
+    }
+
+    /**
+     * Flattens colorings (see {@link Coloring#precompute(Colony, int[], int, java.util.Random)}) into a single array :
+     * the number of colorings, then for each one its number of classes, then each class as its size followed by its settlers.
+     * @param colorings the colorings
+     * @return the flat array
+     */
+    static int[] flatten(int[][][] colorings) {
+        int size = 1;
+        for(int[][] classes : colorings) {
+            size++;
+            for(int[] I : classes) size += 1 + I.length;
+        }
+        int[] flat = new int[size];
+        int k = 0;
+        flat[k++] = colorings.length;
+        for(int[][] classes : colorings) {
+            flat[k++] = classes.length;
+            for(int[] I : classes) {
+                flat[k++] = I.length;
+                System.arraycopy(I, 0, flat, k, I.length);
+                k += I.length;
+            }
+        }
+        return flat;
+    }
+
+    /**
+     * Rebuilds the colorings of a flat array.
+     * @param flat the flat array, as given by {@link Checkpoint#flatten(int[][][])}
+     * @return the colorings
+     */
+    static int[][][] unflatten(int[] flat) {
+        int k = 0;
+        int[][][] colorings = new int[flat[k++]][][];
+        for(int c = 0; c < colorings.length; c++) {
+            colorings[c] = new int[flat[k++]][];
+            for(int i = 0; i < colorings[c].length; i++) {
+                colorings[c][i] = new int[flat[k++]];
+                System.arraycopy(flat, k, colorings[c][i], 0, colorings[c][i].length);
+                k += colorings[c][i].length;
+            }
+        }
+        return colorings;
+    }
+
+    /**
+     * A checkpoint writer saves the checkpoints of a dispatch every {@code period} iterations, off the hot path :
+     * the dispatch only encodes its state, and the file is written by a background thread, in order.
+     * Each file is written next to the checkpoint file then moved onto it, so that the checkpoint file is always complete.
+     */
+    static final class Writer implements AutoCloseable {
+        private final Path path;
+        private final int period;
+        private final ExecutorService executor;
+        private volatile IOException failure;
+
+        /**
+         * Constructs a {@link Writer} of the specified checkpoint file.
+         * @param path the path of the checkpoint file
+         * @param period the number of iterations between two checkpoints
+         */
+        Writer(Path path, int period) {
+            this.path = path;
+            this.period = period;
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "checkpoint-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        /**
+         * Checks if a checkpoint is due once the specified number of iterations are done.
+         * @param done the number of iterations done
+         * @return {@code true} if a checkpoint should be saved, {@code false} otherwise
+         */
+        boolean isDue(int done) {
+            return done % period == 0;
+        }
+
+        /**
+         * Saves the specified checkpoint. It is encoded now, and written later.
+         * @param checkpoint the checkpoint
+         */
+        void save(Checkpoint checkpoint) {
+            byte[] bytes = checkpoint.toBytes();
+            executor.execute(() -> {
+                try {
+                    Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+                    Files.write(tmp, bytes);
+                    try {
+                        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch(AtomicMoveNotSupportedException e) {
+                        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } catch(IOException e) {
+                    if(failure == null) failure = e;
+                }
+            });
+        }
+
+        /**
+         * Waits for the checkpoints being written.
+         * @throws UncheckedIOException if a checkpoint could not be written
+         */
+        @Override
+        public void close() {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if(failure != null) throw new UncheckedIOException("The checkpoint " + path + " could not be written", failure);
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package main.simulation;
+
+import main.model.PreferenceOrder;
+import main.model.Resource;
+import main.model.Settler;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * A colony is a compact and immutable view of a {@link Simulation}, where settlers and resources are identified by
+ * their index (from {@code 0} to {@code n-1}) instead of their objects.
+ * <br>
+ * For each settler, it holds :
+ * <ul>
+ * <li> the indexes of its enemies
+ * <li> the indexes of the resources in order of preference
+ * <li> the rank of each resource, according to its preferences
+ * </ul>
+ * With top-{@code k} preferences (see {@link Simulation#setTopPreferences(boolean)}), the ranks of a settler are only
+ * stored for its {@code k} ranked resources, sorted by index, so that the colony takes {@code O(nk)} memory
+ * instead of {@code O(n²)}. The other resources are tied last, with the rank {@code k}.
+ * <br>
+ * The preferences are not copied : they are read from the orders of preference of the settlers, which store the
+ * positions of the resources in the table of the simulation (see {@link PreferenceOrder}), in the narrowest primitive
+ * type for the number of resources. Only the orders whose table is not the one of the colony are translated.
+ * The rank matrix is stored in the same narrowest type (see {@link IndexMatrix}), and off-heap for very large
+ * colonies. Settlers sharing the same order of preference (see {@link Simulation#setSettlerPreferences(String, String...)})
+ * also share their rank rows, so that a colony with {@code k} distinct orders of preference takes {@code O(kn)} memory.
+ * It is the model the {@link Dispatcher} algorithms work on, through an {@link Assignment}.
+ * A colony does not follow the changes of its simulation : if the simulation changes, a new colony must be built
+ * (see {@link Colony#update(Simulation)} to only build again the settlers that changed).
+ */
+public class Colony {
+    private final Settler[] settlers;
+    private final Resource[] resources;
+    private final Map<Settler, Integer> settlerIndexes;
+    private final Map<Resource, Integer> resourceIndexes;
+    private final PreferenceOrder[] orders;
+    private final int[][] enemies;
+    private final long relationCount;
+    private int[] edited;
+    private final PreferenceOrder[] preferences;
+    private final IndexMatrix ranks;
+    private final IndexMatrix rankedResources;
+
+    /**
+     * The size of the matrices (in bytes) from which they are stored off-heap by {@link Colony#of(Simulation)}.
+     */
+    static final long OFF_HEAP_THRESHOLD = 1L << 30;
+
+    private Colony(Settler[] settlers, Resource[] resources, boolean offHeap) {
+        int n = settlers.length;
+        this.settlers = settlers;
+        this.resources = resources;
+        this.settlerIndexes = new IdentityHashMap<>(n);
+        this.resourceIndexes = new IdentityHashMap<>(resources.length);
+        for(int i = 0; i < n; i++) settlerIndexes.put(settlers[i], i);
+        for(int i = 0; i < resources.length; i++) resourceIndexes.put(resources[i], i);
+
+        this.orders = new PreferenceOrder[n];
+        this.enemies = new int[n][];
+        this.preferences = new PreferenceOrder[n];
+        this.ranks = IndexMatrix.of(n, resources.length, offHeap);
+        this.rankedResources = IndexMatrix.of(n, resources.length, offHeap);
+        Map<PreferenceOrder, Integer> orders = new IdentityHashMap<>();
+        long relations = 0;
+        for(int s = 0; s < n; s++) {
+            enemies[s] = settlers[s].getBadRelations().stream().mapToInt(settlerIndexes::get).toArray();
+            relations += enemies[s].length;
+
+            PreferenceOrder order = settlers[s].getPreferenceOrder();
+            this.orders[s] = order;
+            Integer first = orders.putIfAbsent(order, s);
+            if(first != null) {
+                //same order as a previous settler : its rows are shared
+                preferences[s] = preferences[first];
+                ranks.share(s, first);
+                rankedResources.share(s, first);
+                continue;
+            }
+            PreferenceOrder prefs = order.getTable() == resources ? order : translate(order);
+            preferences[s] = prefs;
+            int k = prefs.length();
+            ranks.allocate(s, k);
+            if(k == resources.length) {
+                for(int i = 0; i < k; i++) ranks.set(s, prefs.position(i), i);
+            } else {
+                //top-k preferences : (resource, rank) pairs sorted by resource, for a binary search
+                long[] pairs = new long[k];
+                for(int i = 0; i < k; i++) pairs[i] = (long) prefs.position(i) << 32 | i;
+                Arrays.sort(pairs);
+                rankedResources.allocate(s, k);
+                for(int i = 0; i < k; i++) {
+                    rankedResources.set(s, i, (int) (pairs[i] >>> 32));
+                    ranks.set(s, i, (int) pairs[i]);
+                }
+            }
+        }
+        this.relationCount = relations;
+    }
+
+    /**
+     * Translates the specified order of preference into an order of the resources of this colony.
+     * @param order an order of preference of another table
+     * @return the same order, whose positions are the indexes of the resources in this colony
+     */
+    private PreferenceOrder translate(PreferenceOrder order) {
+        int[] positions = new int[order.length()];
+        for(int i = 0; i < positions.length; i++) positions[i] = resourceIndexes.get(order.get(i));
+        return PreferenceOrder.of(resources, positions);
+    }
+
+    /**
+     * Builds the colony of the specified simulation. The simulation should be stable
+     * (see {@link Simulation#checkIfStable()}).
+     * <br>
+     * The rank matrices are stored off-heap if they take more than 1 GB (the preferences are the rows of the settlers).
+     * @param simulation the simulation
+     * @return the compact view of the simulation
+     */
+    public static Colony of(Simulation simulation) {
+        Settler[] settlers = simulation.getSettlers().toArray(Settler[]::new);
+        Resource[] resources = simulation.resourceTable();
+        return new Colony(settlers, resources, rankBytes(settlers, resources.length) > OFF_HEAP_THRESHOLD);
+    }
+
+    /**
+     * Computes the size of the rank matrices of a colony of the specified settlers : a rank row per distinct order
+     * of preference, and a row of the ranked resources for top-{@code k} orders.
+     * @param settlers the settlers
+     * @param resourceCount the number of resources
+     * @return the size of the matrices, in bytes
+     */
+    static long rankBytes(Settler[] settlers, int resourceCount) {
+        long entries = 0;
+        Map<PreferenceOrder, Boolean> orders = new IdentityHashMap<>();
+        for(Settler settler : settlers) {
+            PreferenceOrder order = settler.getPreferenceOrder();
+            if(orders.put(order, true) != null) continue;
+            entries += order.length() == resourceCount ? order.length() : 2L * order.length();
+        }
+        return entries * IndexMatrix.width(resourceCount);
+    }
+
+    /**
+     * Constructs a colony sharing the settlers, resources and matrices of the specified colony, with other enemies.
+     * @param colony the colony to share
+     * @param enemies the indexes of the enemies of each settler
+     * @param relationCount the sum of the numbers of enemies
+     */
+    private Colony(Colony colony, int[][] enemies, long relationCount) {
+        this.settlers = colony.settlers;
+        this.resources = colony.resources;
+        this.settlerIndexes = colony.settlerIndexes;
+        this.resourceIndexes = colony.resourceIndexes;
+        this.orders = colony.orders;
+        this.enemies = enemies;
+        this.relationCount = relationCount;
+        this.preferences = colony.preferences;
+        this.ranks = colony.ranks;
+        this.rankedResources = colony.rankedResources;
+    }
+
+    /**
+     * Builds the colony of the specified simulation again, from this colony of a previous state of the simulation.
+     * <br>
+     * A simulation only changes by new <i>bad relations</i> and new preferences : a settler changed if its number of
+     * enemies or its order of preference changed. If only relations changed, only the enemies of the settlers that changed
+     * are built again, in {@code O(n)} plus their degrees, and the preference and rank matrices are shared with this
+     * colony. Otherwise, the whole colony is built again. The settlers that changed are recorded in the new colony
+     * (see {@link Colony#editedSettlers()}).
+     * @param simulation the simulation this colony was built from
+     * @return the colony of the current state of the simulation
+     */
+    public Colony update(Simulation simulation) {
+        List<Settler> current = simulation.getSettlers();
+        if(current.size() != settlers.length) return of(simulation);
+        int count = 0;
+        int[] edited = new int[settlers.length];
+        boolean preferencesChanged = false;
+        for(int s = 0; s < settlers.length; s++) {
+            Settler settler = current.get(s);
+            if(settler != settlers[s]) return of(simulation);
+            boolean changed = settler.getPreferenceOrder() != orders[s];
+            preferencesChanged |= changed;
+            if(changed || settler.getBadRelations().size() != enemies[s].length) edited[count++] = s;
+        }
+        edited = Arrays.copyOf(edited, count);
+
+        Colony colony;
+        if(preferencesChanged) {
+            colony = of(simulation);
+        } else {
+            int[][] enemies = this.enemies.clone();
+            long relations = relationCount;
+            for(int s : edited) {
+                relations -= enemies[s].length;
+                enemies[s] = settlers[s].getBadRelations().stream().mapToInt(settlerIndexes::get).toArray();
+                relations += enemies[s].length;
+            }
+            colony = new Colony(this, enemies, relations);
+        }
+        colony.edited = edited;
+        return colony;
+    }
+
+    /**
+     * Retrieves the settlers that changed since the previous colony, if this colony was built by
+     * {@link Colony#update(Simulation)}.
+     * @return the indexes of the settlers that changed, or {@code null} if this colony was built from scratch
+     */
+    int[] editedSettlers() {
+        return edited;
+    }
+
+    /**
+     * Records the settlers that changed before the specified colony, if this colony was updated from it, so that
+     * they are still seen as changed (see {@link Colony#editedSettlers()}).
+     * @param previous the colony this colony was updated from
+     */
+    void keepEdited(Colony previous) {
+        if(edited == null) return;
+        if(previous.edited == null) {
+            edited = null;
+            return;
+        }
+        edited = IntStream.concat(Arrays.stream(edited), Arrays.stream(previous.edited)).sorted().distinct().toArray();
+    }
+
+    /**
+     * Builds the colony of the specified simulation, choosing where its matrices are stored.
+     * The simulation should be stable (see {@link Simulation#checkIfStable()}).
+     * @param simulation the simulation
+     * @param offHeap {@code true} to store the rank matrices off-heap, {@code false} otherwise
+     * @return the compact view of the simulation
+     */
+    public static Colony of(Simulation simulation, boolean offHeap) {
+        return new Colony(simulation.getSettlers().toArray(Settler[]::new), simulation.resourceTable(), offHeap);
+    }
+
+    /**
+     * Retrieves the number of settlers in the colony.
+     * @return the number of settlers
+     */
+    public int size() {
+        return settlers.length;
+    }
+
+    /**
+     * Retrieves the number of resources in the colony.
+     * @return the number of resources
+     */
+    public int resourceCount() {
+        return resources.length;
+    }
+
+    /**
+     * Retrieves the settler at the specified index.
+     * @param s the index of the settler
+     * @return the settler
+     */
+    public Settler getSettler(int s) {
+        return settlers[s];
+    }
+
+    /**
+     * Retrieves the resource at the specified index.
+     * @param r the index of the resource
+     * @return the resource
+     */
+    public Resource getResource(int r) {
+        return resources[r];
+    }
+
+    /**
+     * Retrieves the index of the specified settler.
+     * @param settler the settler
+     * @return the index of the settler, or {@code -1} if it is not part of the colony
+     */
+    public int indexOf(Settler settler) {
+        return settlerIndexes.getOrDefault(settler, -1);
+    }
+
+    /**
+     * Retrieves the index of the specified resource.
+     * @param resource the resource
+     * @return the index of the resource, or {@code -1} if it is not part of the colony
+     */
+    public int indexOf(Resource resource) {
+        return resourceIndexes.getOrDefault(resource, -1);
+    }
+
+    /**
+     * Retrieves the indexes of the specified settlers.
+     * @param settlers the settlers
+     * @return an array of indexes, in the same order
+     */
+    public int[] indexesOf(List<Settler> settlers) {
+        return settlers.stream().mapToInt(this::indexOf).toArray();
+    }
+
+    /**
+     * Retrieves the number of <i>bad relations</i> of the colony, counted once for each of the two settlers.
+     * This is the amount of work of a full count of the jealous settlers.
+     * @return the sum of the numbers of enemies of the settlers
+     */
+    public long relationCount() {
+        return relationCount;
+    }
+
+    /**
+     * Retrieves the indexes of the enemies of the specified settler. The returned array must not be modified.
+     * @param s the index of the settler
+     * @return the indexes of its enemies
+     */
+    public int[] enemies(int s) {
+        return enemies[s];
+    }
+
+    /**
+     * Retrieves the number of resources the specified settler ranks ({@code n}, or {@code k} with top-{@code k} preferences).
+     * @param s the index of the settler
+     * @return the number of ranked resources
+     */
+    public int preferenceCount(int s) {
+        return preferences[s].length();
+    }
+
+    /**
+     * Retrieves the index of the resource of the specified rank according to the preferences of the specified settler.
+     * @param s the index of the settler
+     * @param rank the rank, lower than {@link Colony#preferenceCount(int)} ({@code 0} is its top choice)
+     * @return the index of the resource
+     */
+    public int preference(int s, int rank) {
+        return preferences[s].position(rank);
+    }
+
+    /**
+     * Retrieves the rank of the specified resource according to the preferences of the specified settler
+     * ({@code 0} is its top choice). A resource the settler does not rank (top-{@code k} preferences) has the rank {@code k}.
+     * @param s the index of the settler
+     * @param r the index of the resource
+     * @return the rank of the resource for this settler
+     */
+    public int rank(int s, int r) {
+        int k = preferences[s].length();
+        if(k == resources.length) return ranks.get(s, r);
+        int lo = 0, hi = k-1;
+        while(lo <= hi) {
+            int mid = (lo+hi) >>> 1;
+            int m = rankedResources.get(s, mid);
+            if(m < r) lo = mid+1;
+            else if(m > r) hi = mid-1;
+            else return ranks.get(s, mid);
+        }
+        return k;
+    }
+
+    /**
+     * Retrieves the current affectations of the settlers of the simulation, as a snapshot which can be restored in an
+     * {@link Assignment} (see {@link Assignment#restore(int[])}).
+     * @return for each settler index, the index of its resource, or {@code -1} if it has none
+     */
+    public int[] affectations() {
+        int[] snapshot = new int[settlers.length];
+        for(int s = 0; s < settlers.length; s++) {
+            Resource resource = settlers[s].getAffectation();
+            snapshot[s] = resource == null ? -1 : indexOf(resource);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Affects to the settlers of the simulation the resources of the specified snapshot
+     * (see {@link Assignment#snapshot(int[])}). The simulation should be cleared before.
+     * @param snapshot for each settler index, the index of its resource, or {@code -1} if it has none
+     */
+    public void apply(int[] snapshot) {
+        for(int s = 0; s < settlers.length; s++) {
+            int r = snapshot[s];
+            if(r < 0) continue;
+            settlers[s].setAffectation(resources[r], rank(s, r));
+            resources[r].setAffected(true);
+        }
+    }
+}
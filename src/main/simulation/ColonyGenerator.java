@@ -0,0 +1,212 @@
+package main.simulation;
+
+import main.file_manager.ColonyWriter;
+import main.model.PreferenceOrder;
+import main.model.Resource;
+import main.model.Settler;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * A colony generator creates random simulations of any size (see {@link Simulation#random(int, int)}).
+ * <br>
+ * Each of the {@code n} settlers starts <i>bad relations</i> with distinct random settlers, according to a
+ * {@link RelationModel}, and receives a random order of preferences, according to a {@link PreferenceModel}.
+ * By default, both models are uniform : each settler starts between {@code 0} and {@code d-1} relations.
+ * Settlers are named by a letter of the alphabet + a number, resources by {@code R} + a number.
+ * <br>
+ * The relations are sampled directly as settler indexes (no shuffle of the whole colony, no lookup by name),
+ * so that generating them costs {@code O(n + m)}, where {@code m} is the number of <i>bad relations</i>.
+ * Each settler draws from its own random stream, split from the seed of the generator : the generated colony only
+ * depends on the seed, whether it is generated sequentially or in parallel.
+ * <br>
+ * A colony can also be written directly to a colony file (see {@link ColonyGenerator#write(ColonyWriter)}), without
+ * being built in memory, for colonies too large to be simulated at once.
+ */
+public class ColonyGenerator {
+    private final int n;
+    private final int d;
+    private long seed;
+    private boolean parallel;
+    private int k;
+    private RelationModel relationModel;
+    private PreferenceModel preferenceModel;
+
+    /**
+     * Constructs a {@link ColonyGenerator} with the specified size and density.
+     * By default, its seed is random and the generation is sequential.
+     * @param n the number of settlers (and so resources) in the colony
+     * @param d the density of <i>bad relations</i> (each settler will start between {@code 0} and {@code d-1} relations)
+     */
+    public ColonyGenerator(int n, int d) {
+        if(n < 1) throw new IllegalArgumentException("A colony should have at least one settler");
+        if(d < 0 || d > n) throw new IllegalArgumentException("The density should be between 0 and " + n);
+        this.n = n;
+        this.d = d;
+        this.seed = new SplittableRandom().nextLong();
+        this.parallel = false;
+        this.k = n;
+        this.relationModel = RelationModel.uniform();
+        this.preferenceModel = PreferenceModel.uniform();
+    }
+
+    /**
+     * Sets the seed of this generator. Two generators with the same size, density and seed generate the same colony.
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets whether the settlers are generated in parallel or not.
+     * @param parallel {@code true} to generate the settlers in parallel, {@code false} otherwise
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Sets the number of resources each settler ranks. By default, it is {@code n}. With {@code k < n}, each settler only
+     * keeps the top {@code k} resources of the order given by the preference model, and the generated simulation accepts
+     * top-{@code k} preferences (see {@link Simulation#setTopPreferences(boolean)}), which takes {@code O(nk)} memory.
+     * @param k the number of ranked resources, between {@code 1} and {@code n}
+     */
+    public void setTopPreferences(int k) {
+        if(k < 1 || k > n) throw new IllegalArgumentException("The number of ranked resources should be between 1 and " + n);
+        this.k = k;
+    }
+
+    /**
+     * Sets the model of the <i>bad relations</i> graph (uniform, power-law, communities...).
+     * @param relationModel the relation model
+     */
+    public void setRelationModel(RelationModel relationModel) {
+        this.relationModel = relationModel;
+    }
+
+    /**
+     * Sets the model of the settlers' preferences (uniform, correlated...).
+     * @param preferenceModel the preference model
+     */
+    public void setPreferenceModel(PreferenceModel preferenceModel) {
+        this.preferenceModel = preferenceModel;
+    }
+
+    /**
+     * Generates a new random simulation.
+     * @return the random simulation
+     */
+    public Simulation generate() {
+        Resource[] resources = new Resource[n];
+        Settler[] settlers = new Settler[n];
+        Map<String, Settler> settlersMap = new HashMap<>(2*n);
+        Map<String, Resource> resourcesMap = new HashMap<>(2*n);
+        for(int i = 0; i < n; i++) {
+            resources[i] = new Resource(Simulation.resourceName(i));
+            resourcesMap.put(resources[i].getName(), resources[i]);
+        }
+        Simulation simulation = new Simulation(settlersMap, resourcesMap);
+        simulation.setTopPreferences(k < n);
+
+        //the orders of preference are stored as positions in the table of the simulation
+        Resource[] table = simulation.resourceTable();
+        int[] positions = new int[n];
+        for(int i = 0; i < n; i++) positions[i] = simulation.positionOf(resources[i]);
+
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[n];
+        for(int i = 0; i < n; i++) streams[i] = root.split();
+
+        //each settler samples the relations it starts, and its preferences
+        RelationModel.Sampler relations = relationModel.sampler(n, d);
+        int[][] started = new int[n][];
+        PreferenceOrder[] orders = new PreferenceOrder[n];
+        range().forEach(i -> {
+            started[i] = relations.sample(i, streams[i]);
+            int[] order = preferenceModel.sample(n, streams[i]);
+            int[] preferences = new int[k];
+            for(int c = 0; c < k; c++) preferences[c] = positions[order[c]];
+            orders[i] = PreferenceOrder.of(table, preferences);
+            settlers[i] = new Settler(Simulation.settlerName(i), n);
+        });
+        //identical orders are interned, as the ones of a colony file
+        for(int i = 0; i < n; i++) {
+            simulation.setPreferences(settlers[i], orders[i]);
+            orders[i] = null;
+        }
+
+        //relations are symmetric : gathers the relations started by the others (O(n + m))
+        int[] count = new int[n+1];
+        for(int[] enemies : started) for(int j : enemies) count[j+1]++;
+        for(int i = 0; i < n; i++) count[i+1] += count[i];
+        int[] received = new int[count[n]];
+        int[] filled = count.clone();
+        for(int i = 0; i < n; i++) for(int j : started[i]) received[filled[j]++] = i;
+
+        range().forEach(i -> {
+            Set<Settler> badRelations = new HashSet<>(2*(started[i].length + count[i+1] - count[i]));
+            for(int j : started[i]) badRelations.add(settlers[j]);
+            for(int k = count[i]; k < count[i+1]; k++) badRelations.add(settlers[received[k]]);
+            settlers[i].setBadRelations(badRelations);
+        });
+
+        for(Settler settler : settlers) settlersMap.put(settler.getName(), settler);
+        return simulation;
+    }
+
+    /**
+     * Writes a new random colony, the same as {@link ColonyGenerator#generate()} would give with the same seed,
+     * directly to the specified colony writer.
+     * <br>
+     * The colony is never built : the statements are written settler by settler, in two passes over the random streams
+     * of the settlers (the relations, then the preferences, which come after all the relations in a colony file),
+     * so that only {@code O(n)} memory is needed, whatever the number of <i>bad relations</i>.
+     * A relation started by both of its settlers is written twice, which the {@link main.file_manager.ColonyReader}
+     * accepts. The writing is always sequential.
+     * @param writer the writer receiving the colony
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void write(ColonyWriter writer) throws IOException {
+        String[] settlerNames = new String[n];
+        String[] resourceNames = new String[n];
+        for(int i = 0; i < n; i++) {
+            settlerNames[i] = Simulation.settlerName(i);
+            resourceNames[i] = Simulation.resourceName(i);
+        }
+        for(String name : settlerNames) writer.writeSettler(name);
+        for(String name : resourceNames) writer.writeResource(name);
+
+        RelationModel.Sampler relations = relationModel.sampler(n, d);
+        SplittableRandom root = new SplittableRandom(seed);
+        for(int i = 0; i < n; i++) {
+            for(int j : relations.sample(i, root.split())) writer.writeBadRelation(settlerNames[i], settlerNames[j]);
+        }
+
+        //the streams are split again in the same order, and the relations sampled again to reach the preferences draws
+        root = new SplittableRandom(seed);
+        String[] preferences = new String[k];
+        for(int i = 0; i < n; i++) {
+            SplittableRandom random = root.split();
+            relations.sample(i, random);
+            int[] order = preferenceModel.sample(n, random);
+            for(int c = 0; c < k; c++) preferences[c] = resourceNames[order[c]];
+            writer.writePreferences(settlerNames[i], preferences);
+        }
+    }
+
+    /**
+     * Retrieves the stream of settlers indexes, parallel or not.
+     * @return the stream of indexes from {@code 0} to {@code n-1}
+     */
+    private IntStream range() {
+        IntStream range = IntStream.range(0, n);
+        return parallel ? range.parallel() : range;
+    }
+}
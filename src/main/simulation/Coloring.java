@@ -0,0 +1,121 @@
+package main.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * A coloring is a partition of settlers into classes of <i>independent</i> settlers, i.e. settlers of a same class
+ * are never enemies.
+ * <br>
+ * The colorings computed here are greedy : settlers are taken in a given order, the first class being the set of
+ * settlers with no enemy before them in the class, then the second class being built the same way among the remaining
+ * settlers, and so on. The {@code i}-th class of such a coloring is exactly the {@code i}-th set of independent
+ * settlers {@code I} computed by MAX-LEF with the same order (see {@link Dispatcher#maxLEFDispatch(int)}).
+ */
+class Coloring {
+    private final Colony colony;
+    private final int[] N, I;
+    private final int[] blocked;
+    private int size, round;
+
+    /**
+     * Constructs a reusable {@link Coloring} of at most {@code capacity} settlers of the specified colony.
+     * <br>
+     * Its buffers are allocated once : the {@code blocked} array is stamped with the index of the current round, and
+     * only cleared when the rounds overflow, so that successive colorings (one per MAX-LEF instance) allocate nothing.
+     * @param colony the colony
+     * @param capacity the maximum number of settlers to color
+     */
+    Coloring(Colony colony, int capacity) {
+        this.colony = colony;
+        this.N = new int[capacity];
+        this.I = new int[capacity];
+        this.blocked = new int[colony.size()];
+    }
+
+    /**
+     * Starts the greedy coloring of the specified settlers, taken in order. Its classes are then computed one by one
+     * (see {@link Coloring#nextClass()}).
+     * @param order the indexes of the settlers to color, in order
+     */
+    void start(int[] order) {
+        System.arraycopy(order, 0, N, 0, order.length);
+        size = order.length;
+    }
+
+    /**
+     * Indicates whether some settlers are not colored yet.
+     * @return {@code true} if there is a next class, {@code false} otherwise
+     */
+    boolean hasNextClass() {
+        return size > 0;
+    }
+
+    /**
+     * Computes the next class of the current coloring, i.e. the settlers left with no enemy before them in the class.
+     * The class is stored in the first entries of {@link Coloring#independents()}, until the next call.
+     * @return the number of settlers of the class
+     */
+    int nextClass() {
+        if(round == Integer.MAX_VALUE) {
+            Arrays.fill(blocked, 0);
+            round = 0;
+        }
+        round++;
+        int kept = 0, independents = 0;
+        for(int k = 0; k < size; k++) {
+            int s = N[k];
+            if(blocked[s] == round) {
+                N[kept++] = s;
+            } else {
+                I[independents++] = s;
+                for(int enemy : colony.enemies(s)) blocked[enemy] = round;
+            }
+        }
+        size = kept;
+        return independents;
+    }
+
+    /**
+     * Retrieves the buffer holding the last class computed (see {@link Coloring#nextClass()}).
+     * The returned array must not be modified.
+     * @return the buffer, whose first entries are the settlers of the class, in order
+     */
+    int[] independents() {
+        return I;
+    }
+
+    /**
+     * Computes the greedy coloring of the specified settlers, taken in order.
+     * @param order the indexes of the settlers to color, in order
+     * @return the classes of the coloring, each class keeping the relative order of its settlers in {@code order}
+     */
+    int[][] classes(int[] order) {
+        List<int[]> classes = new ArrayList<>();
+        start(order);
+        while(hasNextClass()) classes.add(Arrays.copyOf(I, nextClass()));
+        return classes.toArray(int[][]::new);
+    }
+
+    /**
+     * Computes, in parallel, {@code count} greedy colorings of the specified settlers, each one from a random order.
+     * @param colony the colony
+     * @param settlers the indexes of the settlers to color
+     * @param count the number of colorings
+     * @param random the source of randomness, giving the seed of each coloring
+     * @return the {@code count} colorings
+     */
+    static int[][][] precompute(Colony colony, int[] settlers, int count, Random random) {
+        long[] seeds = random.longs(count).toArray();
+        return IntStream.range(0, count).parallel()
+                .mapToObj(i -> {
+                    int[] order = settlers.clone();
+                    Dispatcher.shuffle(order, new Random(seeds[i]));
+                    return new Coloring(colony, order.length).classes(order);
+                })
+                .toArray(int[][][]::new);
+    }
+}
@@ -1,9 +1,18 @@
 package main.simulation;
 
+import main.metrics.BestSolutionEvent;
+import main.metrics.IndependentSetEvent;
+import main.metrics.MaxLEFInstanceEvent;
+import main.metrics.Metrics;
+import main.metrics.SwitchEvent;
 import main.model.Resource;
 import main.model.Settler;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * A <i>dispatcher</i> is a metaphor of a centralized perspective of an allocation problem. Here, we can consider
@@ -12,6 +21,43 @@ import java.util.*;
  */
 public class Dispatcher {
     private final Simulation simulation;
+    private Kernel kernel;
+    private Colony colony;
+    private boolean reported;
+    private Ordering ordering;
+    private int coloringCount;
+    private Long seed;
+    private File checkpointFile;
+    private int checkpointPeriod;
+    private Checkpoint resumed;
+    private SolutionCache cache;
+    private String cachedKey;
+    private Metrics metrics = Metrics.NONE;
+    private ProgressListener progressListener;
+    private long progressInterval;
+
+    /**
+     * The number of switches between two checks of the progress rate, as a mask : checking the clock costs more
+     * than a switch.
+     */
+    private static final int PROGRESS_MASK = (1 << 10) - 1;
+
+    /**
+     * Enum representing how the running order of each MAX-LEF instance is chosen
+     * (see {@link Dispatcher#maxLEFDispatch(int)}).
+     */
+    public enum Ordering {
+        /**
+         * Each instance runs in a random order.
+         */
+        RANDOM,
+        /**
+         * Each instance runs in an order biased by the results of the previous instances : the best order found so far,
+         * where the settlers that remained jealous are moved to the end, slightly perturbed.
+         * It reaches the quality of {@code n} random instances with far fewer instances.
+         */
+        ADAPTIVE
+    }
 
     /**
      * Constructs a {@link Dispatcher} for the specified simulation.
@@ -19,6 +65,333 @@ public class Dispatcher {
      */
     public Dispatcher(Simulation simulation) {
         this.simulation = simulation;
+        this.ordering = Ordering.RANDOM;
+    }
+
+    /**
+     * Sets the number of colorings of the <i>bad relations</i> graph that MAX-LEF precomputes (in parallel) before its
+     * first instance. By default, it is {@code 0}.
+     * <br>
+     * The sets of independent settlers only depend on the running order and on the graph, which never changes between
+     * instances. So, instead of computing them from scratch for every instance, MAX-LEF can reuse the classes of
+     * {@code count} precomputed colorings : each instance takes the next coloring and permutes the settlers of each
+     * class. This removes most of the graph work of each instance, for a close result quality.
+     * <br>
+     * Precomputed colorings are not used with the {@link Ordering#ADAPTIVE} ordering, which needs to build its
+     * classes from the order it chooses.
+     * @param count the number of colorings to precompute, or {@code 0} to compute the sets of each instance
+     */
+    public void setPrecomputedColorings(int count) {
+        if(count < 0) throw new IllegalArgumentException("The number of colorings cannot be negative");
+        this.coloringCount = count;
+    }
+
+    /**
+     * Sets how the running order of each MAX-LEF instance is chosen. By default, it is {@link Ordering#RANDOM}.
+     * @param ordering the ordering mode
+     */
+    public void setOrdering(Ordering ordering) {
+        this.ordering = ordering;
+    }
+
+    /**
+     * Sets the seed of the random choices of the iterative dispatches ({@link Dispatcher#switchDispatch(int)},
+     * {@link Dispatcher#maxLEFDispatch(int)}) : with the same seed, a dispatch of the same simulation gives the same
+     * result. By default, each dispatch draws a new seed.
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Makes the iterative dispatches ({@link Dispatcher#switchDispatch(int)}, {@link Dispatcher#maxLEFDispatch(int)})
+     * save a checkpoint of their state every {@code period} switches or instances, in the specified file (replaced
+     * each time). The checkpoint holds the state of the random, the iteration counter, the best (or current) allocation
+     * and, for MAX-LEF, the current running order and colorings (see {@link Dispatcher#resume(File)}).
+     * <br>
+     * The dispatch only encodes its state in memory : the file is written by a background thread, so that the
+     * dispatch is not slowed down by the disk. The dispatch returns once its last checkpoint is written.
+     * @param file the checkpoint file, or {@code null} to disable the checkpoints
+     * @param period the number of switches or instances between two checkpoints
+     * @throws IllegalArgumentException if the period is not positive
+     */
+    public void setCheckpoint(File file, int period) {
+        if(file != null && period <= 0) throw new IllegalArgumentException("The checkpoint period should be positive");
+        this.checkpointFile = file;
+        this.checkpointPeriod = period;
+    }
+
+    /**
+     * Resumes a dispatch from the specified checkpoint (see {@link Dispatcher#setCheckpoint(File, int)}) : the next
+     * dispatch of the same algorithm does not start over, but goes on from the iteration following the checkpoint,
+     * with the same state. Given the same number of switches or instances, it gives the same result as the dispatch
+     * that saved the checkpoint would have given if it had not been stopped.
+     * <br>
+     * The simulation must be the one of the dispatch that saved the checkpoint.
+     * @param file the checkpoint file
+     * @throws IOException if the file cannot be read, or is not a checkpoint file
+     * @throws IllegalArgumentException if the checkpoint does not match the size of the simulation
+     */
+    public void resume(File file) throws IOException {
+        Checkpoint checkpoint = Checkpoint.read(file.toPath());
+        if(checkpoint.n != simulation.getSettlers().size()) {
+            throw new IllegalArgumentException("The checkpoint was saved for " + checkpoint.n + " settlers, not "
+                    + simulation.getSettlers().size());
+        }
+        this.resumed = checkpoint;
+    }
+
+    /**
+     * Sets the cache of the solutions of the iterative dispatches ({@link Dispatcher#switchDispatch(int)},
+     * {@link Dispatcher#maxLEFDispatch(int)}). The cache holds the best known allocation of each colony, whatever the
+     * dispatch which found it. The first dispatch of a colony held by the cache applies the cached allocation instead of
+     * running. Any other dispatch runs (for example, the same dispatch run again, with more iterations or another
+     * algorithm), and its result replaces the cached allocation if it has fewer jealous settlers. A dispatch resumed
+     * from a checkpoint does not use the cache.
+     * @param cache the cache, or {@code null} to disable it
+     */
+    public void setSolutionCache(SolutionCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Sets the metrics the dispatches report into : timers per phase, counters (instances, switches evaluated and
+     * accepted, full evaluations of the jealousy, cache hits), sizes of the independent sets, and best-so-far trace.
+     * A full evaluation checks every settler of the colony (or of the kernel) : the count of each MAX-LEF instance,
+     * the check of the settlers of a new best order (with {@link Ordering#ADAPTIVE}), the final count reported to the
+     * progress listener, and the initial count of the {@link JealousyTracker} of a switch or repair dispatch.
+     * By default, it is {@link Metrics#NONE}.
+     * @param metrics the metrics, or {@code null} to disable them
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics == null ? Metrics.NONE : metrics;
+    }
+
+    /**
+     * Sets the listener receiving the progress of the iterative dispatches ({@link Dispatcher#switchDispatch(int)},
+     * {@link Dispatcher#maxLEFDispatch(int)}) : the best number of jealous settlers so far, the number of switches or
+     * instances done, and the elapsed time. It is called at most once per interval (between two instances, or every
+     * {@code 1024} switches), and once at the end of the dispatch. The listener can stop a dispatch, which then keeps
+     * its best solution so far (and is not stored in the solution cache).
+     * @param listener the listener, or {@code null} to disable it
+     * @param intervalMillis the minimal time between two progress reports, in milliseconds
+     * @throws IllegalArgumentException if the interval is negative
+     */
+    public void setProgressListener(ProgressListener listener, long intervalMillis) {
+        if(intervalMillis < 0) throw new IllegalArgumentException("The progress interval cannot be negative");
+        this.progressListener = listener;
+        this.progressInterval = intervalMillis * 1_000_000;
+    }
+
+    /**
+     * Reduces the instance this dispatcher works on to its {@link Kernel}. Once called, every dispatch method
+     * only processes the settlers of the kernel : the fixed settlers receive their top choice first, and the isolated
+     * settlers are reinserted at the end with the remaining resources.
+     * <br>
+     * The kernel is computed once : call this method again if the simulation has changed since.
+     * @return the kernel, giving statistics on how many settlers were eliminated
+     */
+    public Kernel kernelize() {
+        this.kernel = Kernel.of(simulation);
+        return kernel;
+    }
+
+    /**
+     * Retrieves the settlers this dispatcher has to dispatch, i.e. all the settlers of the simulation, or only the
+     * settlers of the kernel if {@link Dispatcher#kernelize()} was called.
+     * @return the list of settlers to dispatch
+     */
+    private List<Settler> settlers() {
+        return kernel == null ? simulation.getSettlers() : kernel.getSettlers();
+    }
+
+    /**
+     * Retrieves the colony of the simulation, built from the colony of the previous dispatch if any, so that only the
+     * settlers that changed since are built again (see {@link Colony#update(Simulation)}). If the previous colony was
+     * only built for a report, the settlers that changed before it are kept.
+     * @return the colony of the current state of the simulation
+     */
+    private Colony colony() {
+        Colony previous = colony;
+        colony = colony == null ? Colony.of(simulation) : colony.update(simulation);
+        if(reported) colony.keepEdited(previous);
+        reported = false;
+        return colony;
+    }
+
+    /**
+     * Constructs the {@link QualityReport} of the current affectations of the simulation, from the colony of this
+     * dispatcher : after a dispatch, only the settlers that changed since are built again (see
+     * {@link Colony#update(Simulation)}), instead of the whole colony. The settlers that changed since the previous
+     * dispatch are still checked by the next repair (see {@link Dispatcher#repairDispatch(int)}).
+     * @return the report
+     */
+    public QualityReport report() {
+        QualityReport report = QualityReport.of(colony());
+        reported = true;
+        return report;
+    }
+
+    /**
+     * Creates the source of randomness of a dispatch, from the seed of this dispatcher if it was set.
+     * @return the source of randomness
+     */
+    private StatefulRandom random() {
+        return new StatefulRandom(seed != null ? seed : ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Retrieves the checkpoint to resume from with the specified algorithm, if any, and consumes it.
+     * @param algorithm the algorithm of the dispatch
+     * @param iterations the number of switches or instances of the dispatch
+     * @return the checkpoint, or {@code null} if the dispatch starts over
+     * @throws IllegalArgumentException if the checkpoint was saved by another algorithm, or after more iterations
+     */
+    private Checkpoint resumed(Checkpoint.Algorithm algorithm, int iterations) {
+        Checkpoint checkpoint = resumed;
+        if(checkpoint == null) return null;
+        resumed = null;
+        if(checkpoint.algorithm != algorithm) {
+            throw new IllegalArgumentException("The checkpoint was saved by a " + checkpoint.algorithm + " dispatch");
+        }
+        if(checkpoint.iteration > iterations) {
+            throw new IllegalArgumentException("The checkpoint was saved after " + checkpoint.iteration + " iterations");
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Creates the checkpoint writer of a dispatch, if checkpoints are enabled.
+     * @return the writer, or {@code null} if checkpoints are disabled
+     */
+    private Checkpoint.Writer checkpointWriter() {
+        return checkpointFile == null ? null : new Checkpoint.Writer(checkpointFile.toPath(), checkpointPeriod);
+    }
+
+    /**
+     * Computes the key of a dispatch in the solution cache, if any : the key of the colony, whatever the algorithm and
+     * its parameters, so that every dispatch of a colony competes for the same entry.
+     * @param checkpoint the checkpoint the dispatch resumes from, or {@code null}
+     * @return the key, or {@code null} if the dispatch does not use the cache
+     */
+    private String cacheKey(Checkpoint checkpoint) {
+        if(cache == null || checkpoint != null) return null;
+        return SolutionCache.key(colony());
+    }
+
+    /**
+     * Applies the allocation of the solution cache for the specified key, if any, unless this dispatcher already
+     * looked this colony up : a dispatch run again on the same colony runs, and competes with the cached allocation.
+     * @param key the key of the dispatch, or {@code null}
+     * @return {@code true} if an allocation was applied, {@code false} if the dispatch has to run
+     */
+    private boolean fromCache(String key) {
+        if(key == null || key.equals(cachedKey)) return false;
+        cachedKey = key;
+        try {
+            int[] allocation = cache.get(key, colony);
+            metrics.count(allocation == null ? "cache.misses" : "cache.hits", 1);
+            if(allocation == null) return false;
+            simulation.clear();
+            colony.apply(allocation);
+            return true;
+        } catch(IOException e) {
+            throw new UncheckedIOException("The solution cache could not be read", e);
+        }
+    }
+
+    /**
+     * Stores the current allocation of the simulation in the solution cache, if the dispatch uses it.
+     * @param key the key of the dispatch, or {@code null}
+     */
+    private void toCache(String key) {
+        if(key == null) return;
+        try {
+            cache.put(key, colony, colony.affectations());
+        } catch(IOException e) {
+            throw new UncheckedIOException("The solution cache could not be written", e);
+        }
+    }
+
+    /**
+     * Reports a new best solution of a dispatch to the metrics, and to Java Flight Recorder
+     * (see {@link BestSolutionEvent}).
+     * @param dispatch the name of the dispatch
+     * @param iteration the iteration which found the solution
+     * @param jealous the number of jealous settlers of the solution
+     * @param start the time the dispatch started at, as given by {@link System#nanoTime()}
+     */
+    private void best(String dispatch, int iteration, int jealous, long start) {
+        long elapsed = System.nanoTime() - start;
+        metrics.best(dispatch, iteration, jealous, elapsed);
+        BestSolutionEvent.emit(dispatch, iteration, jealous, elapsed);
+    }
+
+    /**
+     * Creates the progress reporter of a dispatch, if a progress listener is set.
+     * @param dispatch the name of the dispatch
+     * @param iterations the number of switches or instances of the dispatch
+     * @param start the time the dispatch started at, as given by {@link System#nanoTime()}
+     * @return the reporter, or {@code null} if there is no listener
+     */
+    private ProgressReporter progressReporter(String dispatch, int iterations, long start) {
+        return progressListener == null ? null : new ProgressReporter(dispatch, iterations, start);
+    }
+
+    /**
+     * Reports the progress of a dispatch to the progress listener, at most once per interval.
+     */
+    private final class ProgressReporter {
+        private final String dispatch;
+        private final int iterations;
+        private final long start;
+        private long next;
+
+        private ProgressReporter(String dispatch, int iterations, long start) {
+            this.dispatch = dispatch;
+            this.iterations = iterations;
+            this.start = start;
+            this.next = start + progressInterval;
+        }
+
+        /**
+         * Reports the progress, if the interval has elapsed since the previous report.
+         * @param iteration the number of switches or instances done
+         * @param jealous the best number of jealous settlers so far
+         * @return {@code true} to go on, {@code false} if the listener stops the dispatch
+         */
+        private boolean report(int iteration, int jealous) {
+            long now = System.nanoTime();
+            if(now < next) return true;
+            next = now + progressInterval;
+            return progressListener.onProgress(new ProgressListener.Progress(dispatch, iteration, iterations, jealous,
+                    now - start, false));
+        }
+
+        /**
+         * Reports the end of the dispatch.
+         * @param iteration the number of switches or instances done
+         * @param jealous the number of jealous settlers of the result
+         */
+        private void done(int iteration, int jealous) {
+            progressListener.onProgress(new ProgressListener.Progress(dispatch, iteration, iterations, jealous,
+                    System.nanoTime() - start, true));
+        }
+    }
+
+    /**
+     * Affects the fixed settlers of the kernel, if any. Should be called on a cleared simulation.
+     */
+    private void fix() {
+        if(kernel != null) kernel.fix();
+    }
+
+    /**
+     * Reinserts the isolated settlers of the kernel, if any. Should be called once the kernel is dispatched.
+     */
+    private void reinsert() {
+        if(kernel != null) kernel.reinsert();
     }
 
     /**
@@ -31,14 +404,21 @@ public class Dispatcher {
      * (in the sense that each settler receives a distinct resource) in polynomial time.
      */
     public void linearDispatch() {
-        List<Settler> settlers = simulation.getSettlers();
+        long start = System.nanoTime();
+        fix();
+        linearDispatch(settlers());
+        reinsert();
+        metrics.time("linear", System.nanoTime() - start);
+    }
+
+    /**
+     * Affects to each of the specified settlers, in order, its preferred resource among the available resources.
+     * @param settlers the settlers to dispatch
+     */
+    private void linearDispatch(List<Settler> settlers) {
         for(Settler settler : settlers) {
-            Resource[] preferences = settler.getPreferences();
-            int i = 0;
-            Resource preference = preferences[i];
-            while(preference.isAffected()) {
-                preference = preferences[++i];
-            }
+            Resource preference = settler.getBestAvailable();
+            if(preference == null) preference = simulation.getFirstAvailable(); //top-k preferences exhausted
             simulation.affect(settler.getName(), preference.getName());
         }
     }
@@ -48,30 +428,199 @@ public class Dispatcher {
      * keeping the changes only if it's a better configuration for this simulation.
      * This method is also an approximation algorithm, however, compared to {@link Dispatcher#maxLEFDispatch(int)}
      * it is far less efficient and effective.
+     * <br>
+     * The switches are made on the compact view of the simulation, where a {@link JealousyTracker} updates the number
+     * of jealous settlers in {@code O(degree)} after each switch, instead of counting it again over the whole colony.
+     * With a kernel (see {@link Dispatcher#kernelize()}), both settlers of a switch are settlers of the kernel.
+     * <br>
+     * If this dispatcher resumes from a checkpoint (see {@link Dispatcher#resume(File)}), the switches start from the
+     * allocation of the checkpoint, instead of the linear dispatch.
      * @param k the number of switches
      */
     public void switchDispatch(int k) {
-        int i = 0;
-        linearDispatch();
-        List<Settler> settlers = simulation.getSettlers();
-        while(i < k) {
-            Settler p = settlers.get(new Random().nextInt(settlers.size()));
-            int r = p.getBadRelations().isEmpty() ? 0 : new Random().nextInt(p.getBadRelations().size());
-            Settler q = p.getBadRelations().stream()
-                    .skip(r)
-                    .findFirst()
-                    .orElse(null);
-            if(q != null) {
-                String pName = p.getName();
-                String qName = q.getName();
-                int j = simulation.getJealousNumber();
-                simulation.switchAffectations(pName, qName);
-                if (simulation.getJealousNumber() >= j) {
-                    simulation.switchAffectations(pName, qName); //rolling back
+        Checkpoint checkpoint = resumed(Checkpoint.Algorithm.SWITCH, k);
+        String key = cacheKey(checkpoint);
+        if(fromCache(key)) return;
+        long start = System.nanoTime();
+        if(checkpoint == null) linearDispatch();
+
+        Colony colony = colony();
+        Assignment assignment = new Assignment(colony);
+        assignment.restore(checkpoint == null ? colony.affectations() : checkpoint.arrays[0]);
+        JealousyTracker tracker = new JealousyTracker(assignment);
+        int[] settlers = colony.indexesOf(settlers());
+        int[][] candidates = switchCandidates(colony, settlers);
+        StatefulRandom random = random();
+        if(checkpoint != null) random.setState(checkpoint.random);
+        int[] affectations = new int[colony.size()];
+        long search = System.nanoTime();
+        metrics.time("switch.setup", search - start);
+        if(checkpoint == null) best("switch", 0, tracker.getJealousNumber(), start);
+        int evaluated = 0, accepted = 0;
+        int first = checkpoint == null ? 0 : checkpoint.iteration, done = k;
+        ProgressReporter progress = progressReporter("switch", k, start);
+
+        try(Checkpoint.Writer writer = checkpointWriter()) {
+            for(int i = first; i < k && settlers.length > 0; i++) { //nothing to switch in an empty kernel
+                if(progress != null && (i & PROGRESS_MASK) == 0 && i > first && !progress.report(i, tracker.getJealousNumber())) {
+                    done = i;
+                    break;
+                }
+                int index = random.nextInt(settlers.length);
+                int p = settlers[index];
+                int[] enemies = candidates[index];
+                if(enemies.length > 0) {
+                    int q = enemies[random.nextInt(enemies.length)];
+                    int j = tracker.getJealousNumber();
+                    tracker.swap(p, q);
+                    evaluated++;
+                    if(tracker.getJealousNumber() >= j) {
+                        tracker.swap(p, q); //rolling back
+                    } else {
+                        accepted++;
+                        SwitchEvent.emit("switch", p, q, tracker.getJealousNumber());
+                        best("switch", i+1, tracker.getJealousNumber(), start);
+                    }
+                }
+                if(writer != null && writer.isDue(i+1)) {
+                    assignment.snapshot(affectations);
+                    writer.save(new Checkpoint(Checkpoint.Algorithm.SWITCH, colony.size(), i+1, random.getState(),
+                            tracker.getJealousNumber(), affectations));
                 }
             }
-            i++;
         }
+        metrics.time("switch.search", System.nanoTime() - search);
+        metrics.count("switch.swaps.evaluated", evaluated);
+        metrics.count("switch.swaps.accepted", accepted);
+        metrics.count("switch.evaluations", 1); //the tracker counts the jealousy once, then follows the switches
+
+        assignment.snapshot(affectations);
+        simulation.clear();
+        colony.apply(affectations);
+        if(progress != null) progress.done(done, tracker.getJealousNumber());
+        if(done == k) toCache(key);
+    }
+
+    /**
+     * Retrieves the enemies each settler of a switch dispatch can switch its resource with : all its enemies, or
+     * only its enemies in the kernel if this dispatcher has one, so that the fixed settlers keep their top choice.
+     * @param colony the colony
+     * @param settlers the indexes of the settlers to dispatch
+     * @return for each of these settlers, the indexes of the enemies it can switch with
+     */
+    private int[][] switchCandidates(Colony colony, int[] settlers) {
+        int[][] candidates = new int[settlers.length][];
+        boolean[] dispatched = new boolean[colony.size()];
+        for(int s : settlers) dispatched[s] = true;
+        for(int i = 0; i < settlers.length; i++) {
+            int[] enemies = colony.enemies(settlers[i]);
+            candidates[i] = kernel == null ? enemies : Arrays.stream(enemies).filter(q -> dispatched[q]).toArray();
+        }
+        return candidates;
+    }
+
+    /**
+     * The repair dispatch is a warm start : instead of starting over, it takes the current allocation of the simulation
+     * (for example, the result of a previous dispatch, before the colony was edited) and only repairs what the edits
+     * broke, before improving it.
+     * <br>
+     * The settlers keep their resource, unless it is already held by another settler. The settlers left without
+     * resource (new settlers, duplicates) receive their preferred available resource. Then, the settlers concerned by
+     * the changes are checked : the settlers that changed since the previous dispatch of this dispatcher (new
+     * <i>bad relations</i> or preferences, see {@link Colony#update(Simulation)}), the settlers that received a new
+     * resource, and their enemies (every settler if this dispatcher has not dispatched yet). Each jealous settler among
+     * them tries to switch its resource with the enemies it envies, and a switch is kept only if the number of jealous
+     * settlers decreases (both settlers and their enemies, whose envy may have changed, are then checked again), until no
+     * switch improves the allocation or {@code k} switches were tried (kept or not).
+     * <br>
+     * A {@link JealousyTracker} updates the jealousy after each switch, so that the cost only depends on the settlers
+     * concerned, and on their enemies. The kernel of the dispatcher, if any, is not used.
+     * @param k the maximum number of switches to try
+     */
+    public void repairDispatch(int k) {
+        long start = System.nanoTime();
+        Colony colony = colony();
+        int n = colony.size();
+        Assignment assignment = new Assignment(colony);
+        int[] previous = colony.affectations();
+        for(int s = 0; s < n; s++) {
+            if(previous[s] >= 0 && !assignment.isAffected(previous[s])) assignment.affect(s, previous[s]);
+        }
+
+        boolean[] queued = new boolean[n];
+        Deque<Integer> queue = new ArrayDeque<>();
+        int[] edited = colony.editedSettlers();
+        if(edited == null) {
+            for(int s = 0; s < n; s++) enqueue(queue, queued, s);
+        } else {
+            for(int s : edited) enqueue(colony, queue, queued, s);
+        }
+        for(int s = 0; s < n; s++) {
+            if(assignment.resourceOf(s) >= 0) continue;
+            int r = assignment.bestAvailable(s);
+            if(r >= 0) assignment.affect(s, r);
+            enqueue(colony, queue, queued, s);
+        }
+
+        JealousyTracker tracker = new JealousyTracker(assignment);
+        int tries = 0, checked = 0, accepted = 0;
+        while(!queue.isEmpty() && tries < k) {
+            int p = queue.poll();
+            queued[p] = false;
+            checked++;
+            if(!tracker.isJealous(p)) continue;
+            int rank = colony.rank(p, assignment.resourceOf(p));
+            for(int q : colony.enemies(p)) {
+                int rq = assignment.resourceOf(q);
+                if(rq < 0 || colony.rank(p, rq) >= rank) continue;
+                int j = tracker.getJealousNumber();
+                tracker.swap(p, q);
+                tries++;
+                if(tracker.getJealousNumber() < j) {
+                    accepted++;
+                    SwitchEvent.emit("repair", p, q, tracker.getJealousNumber());
+                    enqueue(colony, queue, queued, p);
+                    enqueue(colony, queue, queued, q);
+                    break;
+                }
+                tracker.swap(p, q); //rolling back
+                if(tries == k) break;
+            }
+        }
+
+        int[] affectations = new int[n];
+        assignment.snapshot(affectations);
+        simulation.clear();
+        colony.apply(affectations);
+        metrics.time("repair", System.nanoTime() - start);
+        metrics.count("repair.settlers.checked", checked);
+        metrics.count("repair.swaps.evaluated", tries);
+        metrics.count("repair.swaps.accepted", accepted);
+        metrics.count("repair.evaluations", 1); //the tracker counts the jealousy once, then follows the switches
+    }
+
+    /**
+     * Adds the specified settler and its enemies to the queue of the settlers to check, if they are not queued yet.
+     * @param colony the colony
+     * @param queue the queue of settlers indexes
+     * @param queued whether each settler is queued
+     * @param s the index of the settler
+     */
+    private static void enqueue(Colony colony, Deque<Integer> queue, boolean[] queued, int s) {
+        enqueue(queue, queued, s);
+        for(int enemy : colony.enemies(s)) enqueue(queue, queued, enemy);
+    }
+
+    /**
+     * Adds the specified settler to the queue of the settlers to check, if it is not queued yet.
+     * @param queue the queue of settlers indexes
+     * @param queued whether each settler is queued
+     * @param s the index of the settler
+     */
+    private static void enqueue(Deque<Integer> queue, boolean[] queued, int s) {
+        if(queued[s]) return;
+        queued[s] = true;
+        queue.add(s);
     }
 
     /**
@@ -88,74 +637,169 @@ public class Dispatcher {
      * So, in order to obtain better results and tend towards the optimal, we repeat this algorithm on various instances
      * of the simulation with a different running order each time
      * (each instance can give a different set of independent settlers {@code I}, and thus play on the result).
+     * The way this order is chosen depends on the {@link Ordering} of this dispatcher.
+     * <br>
+     * If this dispatcher resumes from a checkpoint (see {@link Dispatcher#resume(File)}), the instances go on from
+     * the checkpoint, with its best allocation, running order and colorings.
      * @param inst the number of instances of this algorithm's execution
      */
     public void maxLEFDispatch(int inst) {
-        List<Settler> settlers = new ArrayList<>(simulation.getSettlers());
-
-        int min = settlers.size();
-        Map<String, Resource> bestAffectation = new HashMap<>();
+        long start = System.nanoTime();
+        Colony colony = colony();
+        Assignment assignment = new Assignment(colony);
+        int[] settlers = colony.indexesOf(settlers());
+        int[][] fixed = fixed(colony);
+        Checkpoint checkpoint = resumed(Checkpoint.Algorithm.MAX_LEF, inst);
+        String key = cacheKey(checkpoint);
+        if(fromCache(key)) return;
+        StatefulRandom random = random();
+        AdaptiveOrder adaptiveOrder = ordering == Ordering.ADAPTIVE ? new AdaptiveOrder(colony.size(), settlers.length) : null;
 
-        for(int i = 0; i < inst; i++) {
-            Collections.shuffle(settlers);
-            List<Settler> N = new ArrayList<>(settlers);
+        int[][][] colorings;
+        int min = Integer.MAX_VALUE;
+        int[] bestAffectation = new int[colony.size()];
+        Arrays.fill(bestAffectation, -1);
+        for(int[] f : fixed) bestAffectation[f[0]] = f[1]; //kept even if no instance runs
+        if(checkpoint == null) {
+            colorings = coloringCount > 0 && adaptiveOrder == null
+                    ? Coloring.precompute(colony, settlers, coloringCount, random) : null;
+        } else {
+            random.setState(checkpoint.random);
+            min = checkpoint.min;
+            bestAffectation = checkpoint.arrays[0];
+            if(checkpoint.arrays[1].length != settlers.length) {
+                throw new IllegalArgumentException("The checkpoint does not match the settlers to dispatch");
+            }
+            settlers = checkpoint.arrays[1];
+            if(adaptiveOrder != null) adaptiveOrder.restore(checkpoint.arrays[2]);
+            colorings = checkpoint.arrays[3].length > 0 ? Checkpoint.unflatten(checkpoint.arrays[3]) : null;
+        }
+        Coloring coloring = colorings == null ? new Coloring(colony, settlers.length) : null;
+        long instances = System.nanoTime();
+        metrics.time("maxlef.setup", instances - start);
+        int first = checkpoint == null ? 0 : checkpoint.iteration, done = inst;
+        long evaluations = 0;
+        ProgressReporter progress = progressReporter("maxlef", inst, start);
 
-            Set<Settler> I = maxIndependentSet(N);
+        try(Checkpoint.Writer writer = checkpointWriter()) {
+            for(int i = first; i < inst; i++) {
+                if(progress != null && i > first && !progress.report(i, min)) {
+                    done = i;
+                    break;
+                }
+                long instance = metrics.isEnabled() ? System.nanoTime() : 0;
+                MaxLEFInstanceEvent event = new MaxLEFInstanceEvent();
+                event.begin();
+                assignment.clear();
+                for(int[] f : fixed) assignment.affect(f[0], f[1]);
 
-            while(!N.isEmpty()) {
-                N.removeAll(I);
-                I = maxIndependentSet(N);
-            }
+                int rounds = 0;
+                if(colorings != null) {
+                    //the classes are kept in order (the first ones are the largest), only their settlers are permuted
+                    for(int[] I : colorings[i % colorings.length]) {
+                        shuffle(I, random);
+                        affectIndependentSet(assignment, I, I.length, i, rounds++);
+                    }
+                } else {
+                    if(adaptiveOrder != null) adaptiveOrder.next(settlers, random);
+                    else shuffle(settlers, random);
+                    coloring.start(settlers);
+                    while(coloring.hasNextClass()) {
+                        affectIndependentSet(assignment, coloring.independents(), coloring.nextClass(), i, rounds++);
+                    }
+                }
 
-            int j = simulation.getJealousNumber();
-            if(j < min) {
-                min = j;
-                for(Settler s : settlers) {
-                    bestAffectation.put(s.getName(), s.getAffectation());
+                int j = assignment.getJealousNumber();
+                evaluations++;
+                if(adaptiveOrder != null && adaptiveOrder.feedback(settlers, assignment, j)) evaluations++;
+                if(j < min) {
+                    min = j;
+                    assignment.snapshot(bestAffectation);
+                    best("maxlef", i, j, start);
+                }
+                if(event.shouldCommit()) {
+                    event.instance = i;
+                    event.independentSets = rounds;
+                    event.jealous = j;
+                    event.commit();
+                }
+                if(metrics.isEnabled()) {
+                    metrics.time("maxlef.instance", System.nanoTime() - instance);
+                }
+                if(writer != null && writer.isDue(i+1)) {
+                    writer.save(new Checkpoint(Checkpoint.Algorithm.MAX_LEF, colony.size(), i+1, random.getState(), min,
+                            bestAffectation, settlers,
+                            adaptiveOrder != null ? adaptiveOrder.state() : new int[0],
+                            colorings != null ? Checkpoint.flatten(colorings) : new int[0]));
                 }
             }
+        }
+        metrics.time("maxlef.instances", System.nanoTime() - instances);
+        metrics.count("maxlef.instances", done - first);
 
-            simulation.clear();
+        simulation.clear();
+        colony.apply(bestAffectation);
+        reinsert();
+        if(progress != null) {
+            progress.done(done, simulation.getJealousNumber());
+            evaluations++;
         }
-        simulation.setAffectations(bestAffectation);
+        metrics.count("maxlef.evaluations", evaluations);
+        if(done == inst) toCache(key);
     }
 
     /**
-     * Returns the set {@code I} of independents settlers. This method is a step of the MAX-LEF (approximate) algorithm.
+     * Affects to each settler of the set {@code I} of independent settlers its preferred available resource, in order.
+     * This method is a step of the MAX-LEF (approximate) algorithm.
      * <br>
      * See {@link Dispatcher#maxLEFDispatch(int)} for more information.
-     * @param N the initial set of settlers
-     * @return the set {@code I} of independents settlers in the context of MAX-LEF approximate
+     * @param assignment the assignment of the current instance
+     * @param I the set of independent settlers, as the {@code size} first settlers indexes of the array
+     * @param size the number of independent settlers
+     * @param instance the index of the current instance
+     * @param round the index of the set in the current instance
      */
-    private static Set<Settler> maxIndependentSet(List<Settler> N) {
-        Queue<Settler> Q = new ArrayDeque<>(N);
-        Set<Settler> I = new HashSet<>();
-
-        while(!Q.isEmpty()) {
-            Settler independent = Q.poll();
-            I.add(independent);
-            Set<Settler> neighbors = independent.getBadRelations();
-            Q.removeAll(neighbors);
-
-            Resource pi = getBestAffectation(independent);
-            assert pi != null;
-            independent.setAffectation(pi);
-            pi.setAffected(true);
+    private void affectIndependentSet(Assignment assignment, int[] I, int size, int instance, int round) {
+        IndependentSetEvent event = new IndependentSetEvent();
+        event.begin();
+        metrics.sample("maxlef.independent_set", size);
+        for(int k = 0; k < size; k++) {
+            int s = I[k];
+            int pi = assignment.bestAvailable(s);
+            assert pi >= 0;
+            assignment.affect(s, pi);
+        }
+        if(event.shouldCommit()) {
+            event.instance = instance;
+            event.round = round;
+            event.size = size;
+            event.commit();
         }
+    }
 
-        return I;
+    /**
+     * Retrieves the fixed settlers of the kernel, if any, as pairs of indexes in the specified colony.
+     * @param colony the colony
+     * @return an array of pairs (settler index, resource index)
+     */
+    private int[][] fixed(Colony colony) {
+        if(kernel == null) return new int[0][];
+        return kernel.getFixed().entrySet().stream()
+                .map(entry -> new int[]{colony.indexOf(entry.getKey()), colony.indexOf(entry.getValue())})
+                .toArray(int[][]::new);
     }
 
     /**
-     * Returns the specified settler's preferred resource from the list of available resources.
-     * @param s the settler looking for the best resource
-     * @return the settler's preferred resource from the list of available resources.
+     * Shuffles the specified array (Fisher-Yates).
+     * @param array the array to shuffle
+     * @param random the source of randomness
      */
-    private static Resource getBestAffectation(Settler s) {
-        //gives the best available (O = map(r -> r not affected))
-        for(Resource pref : s.getPreferences()) {
-            if(!pref.isAffected()) return pref;
+    static void shuffle(int[] array, Random random) {
+        for(int i = array.length-1; i > 0; i--) {
+            int j = random.nextInt(i+1);
+            int tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
         }
-        return null;
     }
 }
@@ -0,0 +1,161 @@
+package main.simulation;
+
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+/**
+ * An evaluator scores candidate assignments of a {@link Colony}, given as snapshots (for each settler index, the index
+ * of its resource, or {@code -1} if it has none, see {@link Assignment#snapshot(int[])}).
+ * <br>
+ * The colony is immutable and the candidates are only read, so that a batch of candidates is evaluated in parallel,
+ * one candidate per task, without going through the {@link Simulation} (whose settlers hold a single allocation).
+ * Candidates can be given as an {@code int[][]}, or as a flat buffer of {@code n} entries per candidate.
+ */
+public class Evaluator {
+    private final Colony colony;
+
+    /**
+     * Constructs an {@link Evaluator} of candidate assignments of the specified colony.
+     * @param colony the colony
+     */
+    public Evaluator(Colony colony) {
+        this.colony = colony;
+    }
+
+    /**
+     * Retrieves the colony of this evaluator.
+     * @return the colony
+     */
+    public Colony getColony() {
+        return colony;
+    }
+
+    /**
+     * Retrieves the number of jealous settlers of the specified candidate.
+     * @param candidate for each settler index, the index of its resource, or {@code -1} if it has none
+     * @return the number of jealous settlers
+     */
+    public int getJealousNumber(int[] candidate) {
+        check(candidate, 0);
+        return count(candidate, 0);
+    }
+
+    /**
+     * Retrieves the jealous settlers of the specified candidate.
+     * @param candidate for each settler index, the index of its resource, or {@code -1} if it has none
+     * @return the set of the indexes of the jealous settlers
+     */
+    public BitSet getJealousSettlers(int[] candidate) {
+        check(candidate, 0);
+        BitSet jealous = new BitSet(colony.size());
+        for(int s = 0; s < colony.size(); s++) {
+            if(isJealous(candidate, 0, s)) jealous.set(s);
+        }
+        return jealous;
+    }
+
+    /**
+     * Retrieves the number of jealous settlers of each of the specified candidates, evaluated in parallel.
+     * @param candidates the candidates, each one giving for each settler index the index of its resource
+     *                   (or {@code -1} if it has none)
+     * @return the number of jealous settlers of each candidate
+     */
+    public int[] getJealousNumbers(int[][] candidates) {
+        for(int c = 0; c < candidates.length; c++) check(candidates[c], c);
+        return IntStream.range(0, candidates.length).parallel().map(c -> count(candidates[c], 0)).toArray();
+    }
+
+    /**
+     * Retrieves the number of jealous settlers of each of the candidates of the specified flat buffer, evaluated in
+     * parallel. The {@code c}-th candidate takes the entries from {@code c*n} (included) to {@code (c+1)*n} (excluded).
+     * @param buffer the candidates, one after the other
+     * @return the number of jealous settlers of each candidate
+     */
+    public int[] getJealousNumbers(int[] buffer) {
+        int n = colony.size();
+        if(buffer.length % n != 0) throw new IllegalArgumentException("The buffer should hold " + n + " entries per candidate");
+        int count = buffer.length / n;
+        for(int c = 0; c < count; c++) checkEntries(buffer, c*n, c);
+        return IntStream.range(0, count).parallel().map(c -> count(buffer, c*n)).toArray();
+    }
+
+    /**
+     * Retrieves the jealous settlers of each of the specified candidates, evaluated in parallel.
+     * @param candidates the candidates, each one giving for each settler index the index of its resource
+     *                   (or {@code -1} if it has none)
+     * @return the set of the indexes of the jealous settlers of each candidate
+     */
+    public BitSet[] getJealousSettlers(int[][] candidates) {
+        for(int c = 0; c < candidates.length; c++) check(candidates[c], c);
+        BitSet[] jealous = new BitSet[candidates.length];
+        IntStream.range(0, candidates.length).parallel().forEach(c -> {
+            BitSet settlers = new BitSet(colony.size());
+            for(int s = 0; s < colony.size(); s++) {
+                if(isJealous(candidates[c], 0, s)) settlers.set(s);
+            }
+            jealous[c] = settlers;
+        });
+        return jealous;
+    }
+
+    /**
+     * Counts the jealous settlers of the candidate starting at the specified offset.
+     * @param candidates the array holding the candidate
+     * @param offset the index of the entry of the first settler
+     * @return the number of jealous settlers
+     */
+    private int count(int[] candidates, int offset) {
+        int sum = 0;
+        for(int s = 0; s < colony.size(); s++) {
+            if(isJealous(candidates, offset, s)) sum++;
+        }
+        return sum;
+    }
+
+    /**
+     * Checks if the specified settler is jealous of one of its enemies in the candidate starting at the specified offset.
+     * @param candidates the array holding the candidate
+     * @param offset the index of the entry of the first settler
+     * @param s the index of the settler
+     * @return {@code true} if the settler is jealous, {@code false} otherwise
+     */
+    private boolean isJealous(int[] candidates, int offset, int s) {
+        int r = candidates[offset + s];
+        if(r < 0) return false;
+        int rank = colony.rank(s, r);
+        for(int enemy : colony.enemies(s)) {
+            int er = candidates[offset + enemy];
+            if(er >= 0 && colony.rank(s, er) < rank) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks that the specified candidate is a snapshot of this colony.
+     * @param candidate the candidate
+     * @param c the index of the candidate, for the error message
+     * @throws IllegalArgumentException if the candidate does not have {@code n} entries, or holds an invalid resource index
+     */
+    private void check(int[] candidate, int c) {
+        if(candidate.length != colony.size()) {
+            throw new IllegalArgumentException("Candidate " + c + " should have " + colony.size() + " entries");
+        }
+        checkEntries(candidate, 0, c);
+    }
+
+    /**
+     * Checks that the entries of the candidate starting at the specified offset are resource indexes of this colony.
+     * @param candidates the array holding the candidate
+     * @param offset the index of the entry of the first settler
+     * @param c the index of the candidate, for the error message
+     * @throws IllegalArgumentException if the candidate holds an invalid resource index
+     */
+    private void checkEntries(int[] candidates, int offset, int c) {
+        for(int s = 0; s < colony.size(); s++) {
+            int r = candidates[offset + s];
+            if(r < -1 || r >= colony.resourceCount()) {
+                throw new IllegalArgumentException("Candidate " + c + " gives an invalid resource (" + r + ") to settler " + s);
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package main.simulation;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * An index matrix holds rows of indexes between {@code 0} and a bound, in the narrowest primitive type for this bound :
+ * {@code byte} up to {@code 256}, {@code char} up to {@code 65 536}, {@code int} beyond. Rows can have different lengths.
+ * <br>
+ * This is how a {@link Colony} stores its preference and rank matrices, which are the largest structures of a
+ * simulation ({@code n²} entries with complete preferences) : for most colonies, an entry takes 2 bytes instead of 4.
+ * The rows can also be stored off-heap (direct buffers), so that very large matrices are not scanned by the garbage
+ * collector. Off-heap memory is limited by the {@code -XX:MaxDirectMemorySize} option of the JVM.
+ * <br>
+ * Identical rows can be shared (see {@link IndexMatrix#share(int, int)}), so that they are only stored once.
+ */
+abstract class IndexMatrix {
+    /**
+     * Creates an empty matrix of the specified number of rows. Each row must be allocated before being written.
+     * @param rows the number of rows
+     * @param bound the bound of the indexes (excluded)
+     * @param offHeap {@code true} to store the rows off-heap, {@code false} to store them in arrays
+     * @return the matrix, using the narrowest type for the bound
+     */
+    static IndexMatrix of(int rows, int bound, boolean offHeap) {
+        int width = width(bound);
+        if(offHeap) return new OffHeap(rows, width);
+        return switch(width) {
+            case Byte.BYTES -> new Bytes(rows);
+            case Character.BYTES -> new Chars(rows);
+            default -> new Ints(rows);
+        };
+    }
+
+    /**
+     * Retrieves the number of bytes taken by an index lower than the specified bound.
+     * @param bound the bound of the indexes (excluded)
+     * @return {@code 1}, {@code 2} or {@code 4}
+     */
+    static int width(int bound) {
+        if(bound <= 1 << Byte.SIZE) return Byte.BYTES;
+        if(bound <= 1 << Character.SIZE) return Character.BYTES;
+        return Integer.BYTES;
+    }
+
+    /**
+     * Allocates the specified row.
+     * @param row the index of the row
+     * @param length the length of the row
+     */
+    abstract void allocate(int row, int length);
+
+    /**
+     * Makes the specified row share the storage of another row, already written : the two rows are then identical,
+     * and must not be written anymore.
+     * @param row the index of the row
+     * @param from the index of the row to share
+     */
+    abstract void share(int row, int from);
+
+    /**
+     * Retrieves the length of the specified row.
+     * @param row the index of the row
+     * @return the length of the row, or {@code 0} if it is not allocated
+     */
+    abstract int length(int row);
+
+    /**
+     * Retrieves the index at the specified position.
+     * @param row the index of the row
+     * @param col the position in the row
+     * @return the index
+     */
+    abstract int get(int row, int col);
+
+    /**
+     * Sets the index at the specified position.
+     * @param row the index of the row
+     * @param col the position in the row
+     * @param value the index, lower than the bound of the matrix
+     */
+    abstract void set(int row, int col, int value);
+
+    private static final class Bytes extends IndexMatrix {
+        private final byte[][] rows;
+
+        Bytes(int rows) {
+            this.rows = new byte[rows][];
+        }
+
+        @Override
+        void allocate(int row, int length) {
+            rows[row] = new byte[length];
+        }
+
+        @Override
+        void share(int row, int from) {
+            rows[row] = rows[from];
+        }
+
+        @Override
+        int length(int row) {
+            return rows[row] == null ? 0 : rows[row].length;
+        }
+
+        @Override
+        int get(int row, int col) {
+            return rows[row][col] & 0xFF;
+        }
+
+        @Override
+        void set(int row, int col, int value) {
+            rows[row][col] = (byte) value;
+        }
+    }
+
+    private static final class Chars extends IndexMatrix {
+        private final char[][] rows;
+
+        Chars(int rows) {
+            this.rows = new char[rows][];
+        }
+
+        @Override
+        void allocate(int row, int length) {
+            rows[row] = new char[length];
+        }
+
+        @Override
+        void share(int row, int from) {
+            rows[row] = rows[from];
+        }
+
+        @Override
+        int length(int row) {
+            return rows[row] == null ? 0 : rows[row].length;
+        }
+
+        @Override
+        int get(int row, int col) {
+            return rows[row][col];
+        }
+
+        @Override
+        void set(int row, int col, int value) {
+            rows[row][col] = (char) value;
+        }
+    }
+
+    private static final class Ints extends IndexMatrix {
+        private final int[][] rows;
+
+        Ints(int rows) {
+            this.rows = new int[rows][];
+        }
+
+        @Override
+        void allocate(int row, int length) {
+            rows[row] = new int[length];
+        }
+
+        @Override
+        void share(int row, int from) {
+            rows[row] = rows[from];
+        }
+
+        @Override
+        int length(int row) {
+            return rows[row] == null ? 0 : rows[row].length;
+        }
+
+        @Override
+        int get(int row, int col) {
+            return rows[row][col];
+        }
+
+        @Override
+        void set(int row, int col, int value) {
+            rows[row][col] = value;
+        }
+    }
+
+    private static final class OffHeap extends IndexMatrix {
+        private final ByteBuffer[] rows;
+        private final int width;
+
+        OffHeap(int rows, int width) {
+            this.rows = new ByteBuffer[rows];
+            this.width = width;
+        }
+
+        @Override
+        void allocate(int row, int length) {
+            rows[row] = ByteBuffer.allocateDirect(length * width).order(ByteOrder.nativeOrder());
+        }
+
+        @Override
+        void share(int row, int from) {
+            rows[row] = rows[from];
+        }
+
+        @Override
+        int length(int row) {
+            return rows[row] == null ? 0 : rows[row].capacity() / width;
+        }
+
+        @Override
+        int get(int row, int col) {
+            ByteBuffer buffer = rows[row];
+            return switch(width) {
+                case Byte.BYTES -> buffer.get(col) & 0xFF;
+                case Character.BYTES -> buffer.getChar(col * Character.BYTES);
+                default -> buffer.getInt(col * Integer.BYTES);
+            };
+        }
+
+        @Override
+        void set(int row, int col, int value) {
+            ByteBuffer buffer = rows[row];
+            switch(width) {
+                case Byte.BYTES -> buffer.put(col, (byte) value);
+                case Character.BYTES -> buffer.putChar(col * Character.BYTES, (char) value);
+                default -> buffer.putInt(col * Integer.BYTES, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package main.simulation;
+
+import java.util.stream.IntStream;
+
+/**
+ * A jealousy tracker follows the jealousy of every settler of an {@link Assignment} while resources are switched.
+ * <br>
+ * For each settler, it maintains the number of its enemies holding a resource it prefers to its own. A settler is
+ * jealous if and only if this number is positive : {@link JealousyTracker#isJealous(int)} is a single comparison,
+ * and the number of jealous settlers is maintained as well. When two settlers switch their resources, only them and
+ * their enemies are updated, in {@code O(degree)}, instead of checking the whole colony again.
+ * <br>
+ * This is the building block of the local search of {@link Dispatcher#switchDispatch(int)}.
+ * The assignment must only be modified through {@link JealousyTracker#swap(int, int)} once the tracker is built
+ * (or {@link JealousyTracker#reset()} must be called).
+ */
+public final class JealousyTracker {
+    private final Assignment assignment;
+    private final Colony colony;
+    private final int[] envied;
+    private int jealous;
+
+    /**
+     * Constructs a {@link JealousyTracker} of the specified assignment, in its current state.
+     * @param assignment the assignment to follow
+     */
+    public JealousyTracker(Assignment assignment) {
+        this.assignment = assignment;
+        this.colony = assignment.getColony();
+        this.envied = new int[colony.size()];
+        reset();
+    }
+
+    /**
+     * Counts again the jealousy of every settler, from the current state of the assignment.
+     * For large colonies (see {@link Simulation#PARALLEL_THRESHOLD}), the settlers are counted in parallel.
+     */
+    public void reset() {
+        IntStream range = IntStream.range(0, envied.length);
+        if(colony.relationCount() >= Simulation.PARALLEL_THRESHOLD) range = range.parallel();
+        range.forEach(s -> envied[s] = count(s));
+
+        jealous = 0;
+        for(int count : envied) {
+            if(count > 0) jealous++;
+        }
+    }
+
+    /**
+     * Checks if the specified settler is jealous of one of its enemies.
+     * @param s the index of the settler
+     * @return {@code true} if the settler is jealous, {@code false} otherwise
+     */
+    public boolean isJealous(int s) {
+        return envied[s] > 0;
+    }
+
+    /**
+     * Retrieves the number of jealous settlers in the colony.
+     * @return the number of jealous settlers
+     */
+    public int getJealousNumber() {
+        return jealous;
+    }
+
+    /**
+     * Switches the resources of the two specified settlers in the assignment, and updates the jealousy of the
+     * settlers concerned, i.e. the two settlers and their enemies. Both settlers should have a resource.
+     * @param p the index of the first settler
+     * @param q the index of the second settler
+     */
+    public void swap(int p, int q) {
+        int rp = assignment.resourceOf(p), rq = assignment.resourceOf(q);
+        //the enemies of p and q see the resources change hands
+        move(p, q, rp, rq);
+        move(q, p, rq, rp);
+        assignment.swap(p, q);
+        //p and q have a new resource, so their own jealousy is counted again
+        set(p, count(p));
+        set(q, count(q));
+    }
+
+    /**
+     * Updates the enemies of settler {@code s} (except {@code other}, counted again) when it gives up the resource
+     * {@code from} for the resource {@code to}.
+     * @param s the index of the settler
+     * @param other the index of the settler it switches with
+     * @param from the index of the resource it gives up
+     * @param to the index of the resource it receives
+     */
+    private void move(int s, int other, int from, int to) {
+        for(int enemy : colony.enemies(s)) {
+            if(enemy == other) continue;
+            int own = assignment.resourceOf(enemy);
+            if(own < 0) continue;
+            int rank = colony.rank(enemy, own);
+            int delta = (colony.rank(enemy, to) < rank ? 1 : 0) - (colony.rank(enemy, from) < rank ? 1 : 0);
+            if(delta != 0) set(enemy, envied[enemy] + delta);
+        }
+    }
+
+    /**
+     * Counts the enemies of the specified settler holding a resource it prefers to its own.
+     * @param s the index of the settler
+     * @return the number of enemies it envies
+     */
+    private int count(int s) {
+        int own = assignment.resourceOf(s);
+        if(own < 0) return 0;
+        int rank = colony.rank(s, own), count = 0;
+        for(int enemy : colony.enemies(s)) {
+            int r = assignment.resourceOf(enemy);
+            if(r >= 0 && colony.rank(s, r) < rank) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Sets the number of enemies the specified settler envies, and updates the number of jealous settlers.
+     * @param s the index of the settler
+     * @param count the number of enemies it envies
+     */
+    private void set(int s, int count) {
+        if(envied[s] > 0) jealous--;
+        if(count > 0) jealous++;
+        envied[s] = count;
+    }
+}
@@ -0,0 +1,159 @@
+package main.simulation;
+
+import main.model.PreferenceOrder;
+import main.model.Resource;
+import main.model.Settler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A kernel is the reduced instance of a {@link Simulation} on which a {@link Dispatcher} really has to work.
+ * <br>
+ * Before dispatching, two kinds of settlers are eliminated from the instance :
+ * <ul>
+ * <li> <i>isolated</i> settlers, i.e. settlers without any <i>bad relation</i>. As relations are symmetric,
+ * such a settler can never be jealous nor be envied, so it can take any resource left over by the others.
+ * These settlers are reinserted after the dispatch, with {@link Kernel#reinsert()}.
+ * <li> <i>fixed</i> settlers, i.e. settlers that can safely receive their top choice : nobody else (among non-isolated
+ * settlers) wants this resource first, and every enemy of the settler ranks it last. Such a settler is never jealous
+ * and none of its enemies can envy it. These settlers are affected before the dispatch, with {@link Kernel#fix()}.
+ * </ul>
+ * The other settlers form the kernel, returned by {@link Kernel#getSettlers()}.
+ */
+public class Kernel {
+    private final Simulation simulation;
+    private final List<Settler> settlers;
+    private final List<Settler> isolated;
+    private final Map<Settler, Resource> fixed;
+
+    private Kernel(Simulation simulation, List<Settler> settlers, List<Settler> isolated, Map<Settler, Resource> fixed) {
+        this.simulation = simulation;
+        this.settlers = settlers;
+        this.isolated = isolated;
+        this.fixed = fixed;
+    }
+
+    /**
+     * Computes the kernel of the specified simulation. The simulation should be stable
+     * (see {@link Simulation#checkIfStable()}).
+     * @param simulation the simulation to reduce
+     * @return the kernel of the simulation
+     */
+    public static Kernel of(Simulation simulation) {
+        List<Settler> all = simulation.getSettlers();
+        int n = simulation.getResources().size();
+        List<Settler> settlers = new ArrayList<>();
+        List<Settler> isolated = new ArrayList<>();
+        Map<Settler, Resource> fixed = new LinkedHashMap<>();
+
+        //counts how many non-isolated settlers want each resource first
+        Map<Resource, Integer> topChoices = new HashMap<>();
+        for(Settler s : all) {
+            if(s.getBadRelations().isEmpty()) isolated.add(s);
+            else topChoices.merge(s.getPreferenceOrder().get(0), 1, Integer::sum);
+        }
+
+        for(Settler s : all) {
+            if(s.getBadRelations().isEmpty()) continue;
+            Resource top = s.getPreferenceOrder().get(0);
+            if(topChoices.get(top) == 1 && s.getBadRelations().stream().allMatch(enemy -> isLastChoice(enemy, top, n))) {
+                fixed.put(s, top);
+            } else {
+                settlers.add(s);
+            }
+        }
+
+        return new Kernel(simulation, settlers, isolated, fixed);
+    }
+
+    /**
+     * Indicates whether the specified resource is the last choice of the specified settler.
+     * With top-{@code k} preferences, the last choices are the resources the settler does not rank
+     * (the last ranked one is still preferred to them).
+     * @param settler the settler
+     * @param resource the resource
+     * @param n the number of resources
+     * @return {@code true} if the settler ranks this resource last, {@code false} otherwise
+     */
+    private static boolean isLastChoice(Settler settler, Resource resource, int n) {
+        PreferenceOrder preferences = settler.getPreferenceOrder();
+        if(preferences.length() < n) return preferences.rankOf(resource, n) < 0;
+        return preferences.get(n-1) == resource;
+    }
+
+    /**
+     * Affects their top choice to the fixed settlers. This method should be called on a cleared simulation, before
+     * dispatching the settlers of the kernel.
+     */
+    public void fix() {
+        for(Map.Entry<Settler, Resource> entry : fixed.entrySet()) {
+            entry.getKey().setAffectation(entry.getValue());
+            entry.getValue().setAffected(true);
+        }
+    }
+
+    /**
+     * Reinserts the isolated settlers, i.e. affects to each of them its preferred resource among the ones that
+     * are still available. This method should be called once the settlers of the kernel are dispatched.
+     */
+    public void reinsert() {
+        for(Settler s : isolated) {
+            Resource pref = s.getBestAvailable();
+            if(pref == null) pref = simulation.getFirstAvailable(); //top-k preferences exhausted
+            s.setAffectation(pref);
+            pref.setAffected(true);
+        }
+    }
+
+    /**
+     * Retrieves the settlers of the kernel, i.e. the settlers a {@link Dispatcher} still has to dispatch.
+     * @return the list of settlers in the kernel
+     */
+    public List<Settler> getSettlers() {
+        return settlers;
+    }
+
+    /**
+     * Retrieves the fixed settlers, mapped to the resource they receive.
+     * @return the map of fixed settlers and their top choice
+     */
+    Map<Settler, Resource> getFixed() {
+        return fixed;
+    }
+
+    /**
+     * Retrieves the number of isolated settlers (without any <i>bad relation</i>) eliminated from the instance.
+     * @return the number of isolated settlers
+     */
+    public int getIsolatedCount() {
+        return isolated.size();
+    }
+
+    /**
+     * Retrieves the number of settlers fixed to their top choice and eliminated from the instance.
+     * @return the number of fixed settlers
+     */
+    public int getFixedCount() {
+        return fixed.size();
+    }
+
+    /**
+     * Retrieves the total number of settlers eliminated from the instance.
+     * @return the number of eliminated settlers
+     */
+    public int getEliminatedCount() {
+        return isolated.size() + fixed.size();
+    }
+
+    @Override
+    public String toString() {
+        int n = settlers.size() + getEliminatedCount();
+        return "Kernel : " + getEliminatedCount() + "/" + n + " settlers eliminated (" + isolated.size()
+                + " without bad relations, " + fixed.size() + " fixed to their top choice), "
+                + settlers.size() + " remaining";
+    }
+}
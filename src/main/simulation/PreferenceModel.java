@@ -0,0 +1,122 @@
+package main.simulation;
+
+import java.util.SplittableRandom;
+
+/**
+ * A preference model describes how the preferences of the settlers of a random colony are correlated
+ * (see {@link ColonyGenerator#setPreferenceModel(PreferenceModel)}).
+ * <br>
+ * Preferences are sampled settler by settler, from the random stream of the settler only.
+ * <br>
+ * A model holds no state : the number of resources is given to each sample, so that a model can be shared between
+ * generators and threads. The models are the ones of this class only.
+ */
+public abstract class PreferenceModel {
+
+    PreferenceModel() {}
+
+    /**
+     * Samples the preferences of a settler.
+     * @param n the number of resources in the colony
+     * @param random the random stream of the settler
+     * @return the indexes of the {@code n} resources, in order of preference
+     */
+    abstract int[] sample(int n, SplittableRandom random);
+
+    /**
+     * Retrieves the uniform model : each settler has a uniformly random order of preferences.
+     * This is the model of {@link Simulation#random(int, int)}.
+     * @return the uniform model
+     */
+    public static PreferenceModel uniform() {
+        return new PreferenceModel() {
+            @Override
+            int[] sample(int n, SplittableRandom random) {
+                int[] preferences = new int[n];
+                for(int i = 0; i < n; i++) preferences[i] = i;
+                for(int i = n-1; i > 0; i--) {
+                    int j = random.nextInt(i+1);
+                    int tmp = preferences[i];
+                    preferences[i] = preferences[j];
+                    preferences[j] = tmp;
+                }
+                return preferences;
+            }
+        };
+    }
+
+    /**
+     * Retrieves the Mallows model : the preferences of each settler are a random perturbation of a common reference
+     * order ({@code R1} first, then {@code R2}, ...), the probability of an order decreasing with its distance to the
+     * reference order (number of pairs of resources in a different order) by a factor {@code phi}.
+     * <br>
+     * With {@code phi = 0}, every settler has the reference order (everybody wants {@code R1}),
+     * with {@code phi = 1}, this is the uniform model.
+     * Each order is sampled in {@code O(n log n)} (repeated insertion model).
+     * @param phi the dispersion, between {@code 0} and {@code 1}
+     * @return the Mallows model
+     */
+    public static PreferenceModel mallows(double phi) {
+        if(phi < 0 || phi > 1) throw new IllegalArgumentException("The dispersion should be between 0 and 1");
+        return new PreferenceModel() {
+            @Override
+            int[] sample(int n, SplittableRandom random) {
+                //the i-th resource is inserted v places before the end of the i first ones, P(v) being proportional to phi^v
+                int[] insertions = new int[n];
+                for(int i = 0; i < n; i++) insertions[i] = i - displacement(i, random);
+
+                //the resources inserted last take their place first : the i-th one takes the insertions[i]-th free place
+                int[] preferences = new int[n];
+                FreePlaces places = new FreePlaces(n);
+                for(int i = n-1; i >= 0; i--) preferences[places.take(insertions[i])] = i;
+                return preferences;
+            }
+
+            private int displacement(int i, SplittableRandom random) {
+                if(phi == 0) return 0;
+                if(phi == 1) return random.nextInt(i+1);
+                //truncated geometric distribution on [0, i]
+                double u = random.nextDouble();
+                int v = (int) (Math.log(1 - u * (1 - Math.pow(phi, i+1))) / Math.log(phi));
+                return Math.min(v, i);
+            }
+        };
+    }
+
+    /**
+     * A set of {@code n} free places, where the {@code k}-th free place can be found and taken in {@code O(log n)}
+     * (Fenwick tree).
+     */
+    private static class FreePlaces {
+        private final int[] tree;
+        private final int log;
+
+        FreePlaces(int n) {
+            this.tree = new int[n+1];
+            for(int i = 1; i <= n; i++) {
+                tree[i]++;
+                int parent = i + (i & -i);
+                if(parent <= n) tree[parent] += tree[i];
+            }
+            this.log = Integer.highestOneBit(Math.max(n, 1));
+        }
+
+        /**
+         * Takes the {@code k}-th free place (from {@code 0}).
+         * @param k the rank of the place among the free ones
+         * @return the place taken
+         */
+        int take(int k) {
+            int position = 0, remaining = k+1;
+            for(int step = log; step > 0; step >>= 1) {
+                int next = position + step;
+                if(next < tree.length && tree[next] < remaining) {
+                    position = next;
+                    remaining -= tree[next];
+                }
+            }
+            for(int i = position+1; i < tree.length; i += i & -i) tree[i]--;
+            return position;
+        }
+    }
+}
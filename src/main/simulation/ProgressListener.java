@@ -0,0 +1,30 @@
+package main.simulation;
+
+/**
+ * A progress listener receives the progress of the iterative dispatches ({@link Dispatcher#switchDispatch(int)},
+ * {@link Dispatcher#maxLEFDispatch(int)}) while they run, at the rate set by
+ * {@link Dispatcher#setProgressListener(ProgressListener, long)}, and once at their end.
+ * <br>
+ * It is called by the thread of the dispatch, between two switches or instances : it should return quickly.
+ * It can stop a dispatch which has converged, which then ends with its best solution so far.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+    /**
+     * Receives the progress of a dispatch.
+     * @param progress the progress
+     * @return {@code true} to go on, {@code false} to stop the dispatch
+     */
+    boolean onProgress(Progress progress);
+
+    /**
+     * The progress of a dispatch.
+     * @param dispatch the name of the dispatch ({@code switch} or {@code maxlef})
+     * @param iteration the number of switches or instances done
+     * @param iterations the total number of switches or instances of the dispatch
+     * @param jealous the best number of jealous settlers so far
+     * @param elapsedNanos the time elapsed since the beginning of the dispatch, in nanoseconds
+     * @param done {@code true} if this is the last progress of the dispatch (finished or stopped)
+     */
+    record Progress(String dispatch, int iteration, int iterations, int jealous, long elapsedNanos, boolean done) {}
+}
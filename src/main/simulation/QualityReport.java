@@ -0,0 +1,303 @@
+package main.simulation;
+
+import main.file_manager.Quoting;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * A quality report describes an allocation of a {@link Colony} beyond its number of jealous settlers : the distribution
+ * of the ranks of the affectations (rank {@code 1} is the top choice of a settler, see {@link Colony#rank(int, int)}),
+ * their mean and median, the number of settlers holding their top choice, and for each settler the enemies it envies,
+ * i.e. the enemies holding a resource it prefers to its own.
+ * <br>
+ * Every statistic is computed in a single pass over the compact colony, when the report is constructed : the ranks are
+ * counted in a histogram (from which the median is read, without sorting), and the envied enemies of all the settlers
+ * are stored one after the other in a single array, settler {@code s} owning the entries from {@code offsets[s]}
+ * (included) to {@code offsets[s+1]} (excluded).
+ * <br>
+ * The report can be printed ({@link QualityReport#print(PrintWriter)}), or written as JSON
+ * ({@link QualityReport#writeJson(Writer)}) or CSV ({@link QualityReport#writeCsv(Writer)}).
+ */
+public class QualityReport {
+    private final Colony colony;
+    private final int[] affectations;
+    private final int[] ranks;
+    private final long[] rankCounts;
+    private final int[] offsets;
+    private final int[] envied;
+    private final int affected, jealous, topChoices, maxRank;
+    private final long rankSum;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int PRINTED_RANKS = 10;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String CSV_EXTENSION = ".csv";
+
+    /**
+     * Constructs the {@link QualityReport} of the current affectations of the settlers of the specified colony.
+     * The colony is not built again : to report on a simulation, use the colony a dispatcher already holds
+     * (see {@link Dispatcher#report()}).
+     * @param colony the colony, up to date with its simulation
+     * @return the report
+     */
+    public static QualityReport of(Colony colony) {
+        return new QualityReport(colony, colony.affectations());
+    }
+
+    /**
+     * Constructs the {@link QualityReport} of the specified allocation.
+     * @param colony the colony
+     * @param affectations for each settler index, the index of its resource, or {@code -1} if it has none
+     *                     (see {@link Assignment#snapshot(int[])})
+     * @throws IllegalArgumentException if the allocation does not have one entry per settler
+     */
+    public QualityReport(Colony colony, int[] affectations) {
+        int n = colony.size();
+        if(affectations.length != n) {
+            throw new IllegalArgumentException("The allocation should have " + n + " entries, not " + affectations.length);
+        }
+        this.colony = colony;
+        this.affectations = affectations.clone();
+        this.ranks = new int[n];
+        this.offsets = new int[n+1];
+
+        long[] rankCounts = new long[INITIAL_CAPACITY];
+        int[] envied = new int[INITIAL_CAPACITY];
+        int size = 0, affected = 0, jealous = 0, topChoices = 0, maxRank = 0;
+        long rankSum = 0;
+        for(int s = 0; s < n; s++) {
+            offsets[s] = size;
+            int r = affectations[s];
+            if(r < 0) {
+                ranks[s] = -1;
+                continue;
+            }
+            int rank = colony.rank(s, r);
+            ranks[s] = rank;
+            if(rank >= rankCounts.length) rankCounts = Arrays.copyOf(rankCounts, Math.max(rank+1, 2*rankCounts.length));
+            rankCounts[rank]++;
+            rankSum += rank;
+            maxRank = Math.max(maxRank, rank);
+            affected++;
+            if(rank == 0) {
+                topChoices++;
+                continue; //the top choice cannot be envied
+            }
+            for(int enemy : colony.enemies(s)) {
+                int e = affectations[enemy];
+                if(e >= 0 && colony.rank(s, e) < rank) {
+                    if(size == envied.length) envied = Arrays.copyOf(envied, 2*size);
+                    envied[size++] = enemy;
+                }
+            }
+            if(size > offsets[s]) jealous++;
+        }
+        offsets[n] = size;
+
+        this.rankCounts = Arrays.copyOf(rankCounts, affected == 0 ? 0 : maxRank+1);
+        this.envied = Arrays.copyOf(envied, size);
+        this.affected = affected;
+        this.jealous = jealous;
+        this.topChoices = topChoices;
+        this.maxRank = affected == 0 ? 0 : maxRank+1;
+        this.rankSum = rankSum + affected;
+    }
+
+    /**
+     * Retrieves the colony of this report.
+     * @return the colony
+     */
+    public Colony getColony() {
+        return colony;
+    }
+
+    /**
+     * Retrieves the number of settlers holding a resource.
+     * @return the number of affected settlers
+     */
+    public int getAffectedNumber() {
+        return affected;
+    }
+
+    /**
+     * Retrieves the number of jealous settlers, i.e. the settlers envying at least one enemy.
+     * @return the number of jealous settlers
+     */
+    public int getJealousNumber() {
+        return jealous;
+    }
+
+    /**
+     * Retrieves the number of settlers holding their top choice.
+     * @return the number of settlers of rank {@code 1}
+     */
+    public int getTopChoiceNumber() {
+        return topChoices;
+    }
+
+    /**
+     * Retrieves the number of envied pairs, i.e. the number of (settler, enemy) pairs such that the settler envies
+     * the enemy.
+     * @return the number of envied pairs
+     */
+    public int getEnviedPairNumber() {
+        return envied.length;
+    }
+
+    /**
+     * Retrieves the highest rank of an affectation.
+     * @return the highest rank (from {@code 1}), or {@code 0} if no settler is affected
+     */
+    public int getMaxRank() {
+        return maxRank;
+    }
+
+    /**
+     * Retrieves the number of settlers holding the resource of the specified rank in their preferences.
+     * @param rank the rank, from {@code 1} (top choice)
+     * @return the number of settlers of this rank
+     */
+    public long getRankCount(int rank) {
+        return rank < 1 || rank > rankCounts.length ? 0 : rankCounts[rank-1];
+    }
+
+    /**
+     * Retrieves the mean rank of the affectations.
+     * @return the mean rank (from {@code 1}), or {@code 0} if no settler is affected
+     */
+    public double getMeanRank() {
+        return affected == 0 ? 0 : (double) rankSum / affected;
+    }
+
+    /**
+     * Retrieves the median rank of the affectations (the lower median, for an even number of affected settlers).
+     * @return the median rank (from {@code 1}), or {@code 0} if no settler is affected
+     */
+    public int getMedianRank() {
+        long seen = 0, half = (affected + 1) / 2;
+        for(int rank = 0; rank < rankCounts.length; rank++) {
+            seen += rankCounts[rank];
+            if(seen >= half) return rank+1;
+        }
+        return 0;
+    }
+
+    /**
+     * Retrieves the rank of the affectation of the specified settler.
+     * @param s the index of the settler
+     * @return its rank (from {@code 1}), or {@code 0} if it has no resource
+     */
+    public int getRank(int s) {
+        return ranks[s] + 1;
+    }
+
+    /**
+     * Retrieves the number of enemies the specified settler envies.
+     * @param s the index of the settler
+     * @return the number of envied enemies ({@code 0} if it is not jealous)
+     */
+    public int getEnviedCount(int s) {
+        return offsets[s+1] - offsets[s];
+    }
+
+    /**
+     * Retrieves the enemies the specified settler envies.
+     * @param s the index of the settler
+     * @return the indexes of the envied enemies
+     */
+    public int[] getEnvied(int s) {
+        return Arrays.copyOfRange(envied, offsets[s], offsets[s+1]);
+    }
+
+    /**
+     * Prints the summary of the report : the numbers of affected, jealous and top choice settlers, the number of envied
+     * pairs, the mean and median ranks, and the number of settlers of each of the first {@code 10} ranks (the settlers
+     * of the worse ranks are counted together).
+     * @param out the output
+     */
+    public void print(PrintWriter out) {
+        int n = colony.size();
+        out.println(affected + "/" + n + " affected settlers, " + jealous + " jealous settlers, " + envied.length + " envied pairs");
+        out.printf("%d settlers (%.1f%%) hold their top choice%n", topChoices, n == 0 ? 0.0 : 100.0 * topChoices / n);
+        out.printf("mean rank %.3f, median rank %d, worst rank %d%n", getMeanRank(), getMedianRank(), maxRank);
+        long worse = 0;
+        for(int rank = 0; rank < rankCounts.length; rank++) {
+            if(rank >= PRINTED_RANKS) worse += rankCounts[rank];
+            else out.printf("rank %-6d : %d%n", rank+1, rankCounts[rank]);
+        }
+        if(worse > 0) out.printf("rank > %-4d : %d%n", PRINTED_RANKS, worse);
+    }
+
+    /**
+     * Writes the report as a JSON object, with the fields {@code settlers}, {@code affected}, {@code jealous},
+     * {@code topChoices}, {@code enviedPairs}, {@code meanRank}, {@code medianRank}, {@code maxRank},
+     * {@code rankCounts} (the number of settlers of each rank, from rank {@code 1}), and {@code allocation} (array of
+     * objects with the fields {@code settler}, {@code resource}, {@code rank} and {@code envied}, the names of the
+     * envied enemies).
+     * @param writer the writer
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void writeJson(Writer writer) throws IOException {
+        writer.write("{\n  \"settlers\": " + colony.size() + ",\n  \"affected\": " + affected + ",\n  \"jealous\": " + jealous
+                + ",\n  \"topChoices\": " + topChoices + ",\n  \"enviedPairs\": " + envied.length
+                + ",\n  \"meanRank\": " + getMeanRank() + ",\n  \"medianRank\": " + getMedianRank()
+                + ",\n  \"maxRank\": " + maxRank + ",\n  \"rankCounts\": [");
+        for(int rank = 0; rank < rankCounts.length; rank++) {
+            writer.write((rank > 0 ? ", " : "") + rankCounts[rank]);
+        }
+        writer.write("],\n  \"allocation\": [");
+        for(int s = 0; s < colony.size(); s++) {
+            int r = affectations[s];
+            writer.write((s > 0 ? "," : "") + "\n    {\"settler\": " + Quoting.json(colony.getSettler(s).getName())
+                    + ", \"resource\": " + (r < 0 ? "null" : Quoting.json(colony.getResource(r).getName()))
+                    + ", \"rank\": " + getRank(s) + ", \"envied\": [");
+            for(int i = offsets[s]; i < offsets[s+1]; i++) {
+                writer.write((i > offsets[s] ? ", " : "") + Quoting.json(colony.getSettler(envied[i]).getName()));
+            }
+            writer.write("]}");
+        }
+        writer.write("\n  ]\n}\n");
+        writer.flush();
+    }
+
+    /**
+     * Writes the allocation as CSV, one row per settler, with the header {@code settler,resource,rank,envied}
+     * ({@code resource} is empty and {@code rank} is {@code 0} for a settler without resource, and {@code envied} lists
+     * the names of the envied enemies, separated by {@code ;}).
+     * @param writer the writer
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write("settler,resource,rank,envied\n");
+        StringBuilder names = new StringBuilder();
+        for(int s = 0; s < colony.size(); s++) {
+            int r = affectations[s];
+            names.setLength(0);
+            for(int i = offsets[s]; i < offsets[s+1]; i++) {
+                if(i > offsets[s]) names.append(';');
+                names.append(colony.getSettler(envied[i]).getName());
+            }
+            writer.write(Quoting.csv(colony.getSettler(s).getName()) + "," + (r < 0 ? "" : Quoting.csv(colony.getResource(r).getName()))
+                    + "," + getRank(s) + "," + Quoting.csv(names.toString()) + "\n");
+        }
+        writer.flush();
+    }
+
+    /**
+     * Writes the report into the specified file, as CSV if its name ends with {@code .csv}, otherwise as JSON.
+     * @param file the file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File file) throws IOException {
+        try(Writer writer = new BufferedWriter(new FileWriter(file), BUFFER_SIZE)) {
+            if(file.getName().endsWith(CSV_EXTENSION)) writeCsv(writer);
+            else writeJson(writer);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package main.simulation;
+
+import java.util.SplittableRandom;
+
+/**
+ * A relation model describes how the <i>bad relations</i> of a random colony are structured
+ * (see {@link ColonyGenerator#setRelationModel(RelationModel)}).
+ * <br>
+ * With every model, each settler starts a number of relations with distinct other settlers, the relations being
+ * symmetric. The density {@code d} of the generator is such that a settler starts {@code (d-1)/2} relations on average.
+ * Relations are sampled settler by settler, from the random stream of the settler only.
+ * <br>
+ * A model holds no state : each colony is sampled by its own {@link Sampler}, so that a model can be shared between
+ * generators and threads. The models are the ones of this class only.
+ */
+public abstract class RelationModel {
+
+    RelationModel() {}
+
+    /**
+     * Prepares the sampling of the relations of a colony of {@code n} settlers with a density {@code d}.
+     * @param n the number of settlers
+     * @param d the density of <i>bad relations</i>
+     * @return the sampler of the relations of this colony
+     */
+    abstract Sampler sampler(int n, int d);
+
+    /**
+     * A sampler samples the relations of the settlers of one colony.
+     */
+    interface Sampler {
+        /**
+         * Samples the relations started by the specified settler.
+         * @param i the index of the settler
+         * @param random the random stream of the settler
+         * @return the indexes of the distinct settlers it detests, other than itself
+         */
+        int[] sample(int i, SplittableRandom random);
+    }
+
+    /**
+     * Retrieves the uniform model : each settler starts between {@code 0} and {@code d-1} relations
+     * with settlers chosen uniformly. This is the model of {@link Simulation#random(int, int)}.
+     * @return the uniform model
+     */
+    public static RelationModel uniform() {
+        return new RelationModel() {
+            @Override
+            Sampler sampler(int n, int d) {
+                return (i, random) -> {
+                    int k = d > 0 ? random.nextInt(d) : 0;
+                    int[] enemies = new int[k];
+                    floyd(random, enemies, 0, k, n-1);
+                    for(int c = 0; c < k; c++) if(enemies[c] >= i) enemies[c]++; //skips i
+                    return enemies;
+                };
+            }
+        };
+    }
+
+    /**
+     * Retrieves the power-law model : a few settlers (the first ones) are hated by many others, most settlers by a few.
+     * The weight of the {@code i}-th settler is {@code (i+1)^(-1/(exponent-1))}, and both the number of relations
+     * a settler starts and the probability to be chosen by the others are proportional to its weight
+     * (Chung-Lu model, whose degrees follow a power law of the specified exponent).
+     * @param exponent the exponent of the power law, greater than {@code 1} (usually between {@code 2} and {@code 3})
+     * @return the power-law model
+     */
+    public static RelationModel powerLaw(double exponent) {
+        if(exponent <= 1) throw new IllegalArgumentException("The exponent of a power law should be greater than 1");
+        return new RelationModel() {
+            @Override
+            Sampler sampler(int n, int d) {
+                double[] cumulative = new double[n];
+                double sum = 0;
+                for(int i = 0; i < n; i++) {
+                    sum += weight(i);
+                    cumulative[i] = sum;
+                }
+                double mean = sum / n;
+
+                return (i, random) -> {
+                    double expected = Math.max(0, d-1) / 2.0 * weight(i) / mean;
+                    int k = (int) Math.min((n-1)/2, Math.floor(expected + random.nextDouble()));
+                    int[] enemies = new int[k];
+                    Marks chosen = new Marks(k+1);
+                    chosen.add(i);
+
+                    int c = 0, attempts = 0;
+                    while(c < k) {
+                        //weighted draws, completed by uniform draws if the heaviest settlers are already chosen
+                        int t = attempts++ < 8*k ? weighted(cumulative, random) : random.nextInt(n);
+                        if(chosen.add(t)) enemies[c++] = t;
+                    }
+                    return enemies;
+                };
+            }
+
+            private double weight(int i) {
+                return Math.pow(i+1, -1/(exponent-1));
+            }
+
+            private int weighted(double[] cumulative, SplittableRandom random) {
+                int n = cumulative.length;
+                double x = random.nextDouble() * cumulative[n-1];
+                int lo = 0, hi = n-1;
+                while(lo < hi) {
+                    int mid = (lo+hi) >>> 1;
+                    if(cumulative[mid] < x) lo = mid+1;
+                    else hi = mid;
+                }
+                return lo;
+            }
+        };
+    }
+
+    /**
+     * Retrieves the community model : the colony is split into {@code count} communities of consecutive settlers,
+     * and feuds mostly happen inside a community. Each settler starts between {@code 0} and {@code d-1} relations,
+     * each of them being with a settler of another community with probability {@code mixing}.
+     * @param count the number of communities
+     * @param mixing the probability of a relation between two communities, between {@code 0} and {@code 1}
+     * @return the community model
+     */
+    public static RelationModel communities(int count, double mixing) {
+        if(count < 1) throw new IllegalArgumentException("There should be at least one community");
+        if(mixing < 0 || mixing > 1) throw new IllegalArgumentException("The mixing probability should be between 0 and 1");
+        return new RelationModel() {
+            @Override
+            Sampler sampler(int n, int d) {
+                return (i, random) -> {
+                    int c = (int) ((long) i * count / n);
+                    int start = (int) (((long) c * n + count - 1) / count);
+                    int end = (int) (((long) (c+1) * n + count - 1) / count);
+                    int size = end - start;
+
+                    int k = d > 0 ? random.nextInt(d) : 0;
+                    int inside = 0;
+                    for(int j = 0; j < k; j++) if(random.nextDouble() >= mixing) inside++;
+                    inside = Math.min(inside, size-1);
+                    int outside = Math.min(k - inside, n - size);
+
+                    int[] enemies = new int[inside + outside];
+                    floyd(random, enemies, 0, inside, size-1);
+                    for(int j = 0; j < inside; j++) enemies[j] += enemies[j] >= i-start ? start+1 : start; //skips i
+                    floyd(random, enemies, inside, outside, n-size);
+                    for(int j = inside; j < enemies.length; j++) if(enemies[j] >= start) enemies[j] += size; //skips the community
+                    return enemies;
+                };
+            }
+        };
+    }
+
+    /**
+     * Samples {@code k} distinct values between {@code 0} and {@code population-1} (Floyd's algorithm, {@code O(k)}).
+     * @param random the random stream
+     * @param values the array receiving the values
+     * @param from the index of the first value in the array
+     * @param k the number of values
+     * @param population the number of possible values, at least {@code k}
+     */
+    static void floyd(SplittableRandom random, int[] values, int from, int k, int population) {
+        Marks chosen = new Marks(k);
+        for(int j = population-k; j < population; j++) {
+            int t = random.nextInt(j+1);
+            if(!chosen.add(t)) {
+                chosen.add(j);
+                t = j;
+            }
+            values[from++] = t;
+        }
+    }
+
+    /**
+     * A set of at most {@code capacity} non-negative values, marked in an open-addressing table of {@code int}
+     * (linear probing, at most half full), so that the draws of a settler are not boxed.
+     */
+    private static final class Marks {
+        private final int[] table;
+        private final int mask;
+
+        Marks(int capacity) {
+            int size = Integer.highestOneBit(Math.max(2*capacity, 1)) << 1;
+            this.table = new int[size];
+            this.mask = size-1;
+        }
+
+        /**
+         * Marks the specified value.
+         * @param value the value, non-negative
+         * @return {@code true} if the value was not already marked
+         */
+        boolean add(int value) {
+            int h = value * 0x9E3779B9;
+            //a free slot holds 0, a marked value is stored plus one
+            for(int slot = (h ^ h >>> 16) & mask; ; slot = (slot+1) & mask) {
+                if(table[slot] == 0) {
+                    table[slot] = value+1;
+                    return true;
+                }
+                if(table[slot] == value+1) return false;
+            }
+        }
+    }
+}
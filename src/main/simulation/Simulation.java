@@ -1,15 +1,14 @@
 package main.simulation;
 
+import main.model.PreferenceOrder;
 import main.model.Resource;
 import main.model.Settler;
 
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import java.util.Arrays;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.stream.Stream;
 
 /**
  * This class represents the simulation of a colony where each
@@ -25,10 +24,30 @@ import java.util.Collections;
  * <br><br>
  * There are various methods and algorithms for finding a result.
  * Here, it's a {@link Dispatcher} that will allocate (dispatch) resources to settlers according to the method used.
+ * <br><br>
+ * For large colonies, a simulation can accept top-{@code k} preferences (see {@link Simulation#setTopPreferences(boolean)}) :
+ * each settler only ranks its {@code k} preferred resources, and the other resources are tied last.
+ * <br>
+ * The orders of preference are stored as positions in a table of the resources of the simulation (see
+ * {@link PreferenceOrder}), and identical orders are interned : the settlers that submit the same order share the
+ * same {@link PreferenceOrder}, so that a colony with {@code k} distinct orders only stores {@code O(kn)} positions.
+ * Each order counts the settlers sharing it, and is released once no settler uses it anymore (when their preferences
+ * are set again).
  */
 public class Simulation {
     private final Map<String, Resource> resources;
     private final Map<String, Settler> settlers;
+    private final Map<PreferenceOrder, Order> orders;
+    private boolean topPreferences;
+    private Resource[] table;
+    private Map<Resource, Integer> positions;
+    private int availableCursor;
+
+    /**
+     * The number of <i>bad relations</i> (counted once for each of the two settlers) from which the jealous settlers
+     * of a colony are counted in parallel : below, the cost of splitting the work exceeds the gain.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 18;
 
     private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
 
@@ -39,42 +58,29 @@ public class Simulation {
     public Simulation(int n) {
         this.resources = new HashMap<>();
         this.settlers = new HashMap<>();
+        this.orders = new HashMap<>();
         init(n);
     }
 
     public Simulation(Map<String, Settler> settlers, Map<String, Resource> resources) {
         this.resources = resources;
         this.settlers = settlers;
+        this.orders = new HashMap<>();
     }
 
     /**
      * Constructs a new {@link Simulation} with the specified number of settlers {@code n} by random states :
      * each of the {@code n} settlers will have a maximum specified number {@code d} of enemy (<i>bad relations</i>) in the colony,
      * and their preferences will be random (by shuffling the resources set of this simulation).
+     * <br>
+     * See {@link ColonyGenerator} to choose the seed or to generate large colonies in parallel.
      * @param n the number of settlers (and so resources) in the colony
      * @param d the density of <i>bad relations</i> (each settler will have a random set of enemy between {@code 0} and {@code d})
      * @return the random simulation instance
      */
     public static Simulation random(int n, int d) {
         assert d < n;
-
-        Simulation simulation = new Simulation(n);
-        Random r = new Random();
-        List<Resource> resourcesList = Arrays.asList(simulation.resources.values().toArray(Resource[]::new));
-        List<String> settlersKeys = new ArrayList<>(simulation.getSettlersMap().keySet());
-        for(int i = 0; i < n; i++) {
-            Collections.shuffle(settlersKeys);
-            int rand = r.nextInt(d);
-            String siKey = settlersKeys.get(i);
-            for(String badKey : settlersKeys.subList(0, rand)) {
-                if(!siKey.equals(badKey)) simulation.setBadRelations(siKey, badKey);
-            }
-
-            Collections.shuffle(resourcesList);
-            simulation.getSettlers().get(i).setPreferences(resourcesList.toArray(Resource[]::new));
-        }
-
-        return simulation;
+        return new ColonyGenerator(n, d).generate();
     }
 
     /**
@@ -84,36 +90,47 @@ public class Simulation {
      * @param n the number of settlers in the colony
      */
     private void init(int n) {
-        for(int i = 1; i <= n; i++) {
-            String sn = String.valueOf(ALPHABET[(i-1)%26])+((i-1)/26+1);
-            resources.put("R" + i, new Resource("R"+i));
+        for(int i = 0; i < n; i++) {
+            String sn = settlerName(i);
+            resources.put(resourceName(i), new Resource(resourceName(i)));
             settlers.put(sn, new Settler(sn, n));
         }
-        System.out.println("Settlers : " + settlers.keySet());
+        if(n <= SimulationView.SUMMARY_THRESHOLD) System.out.println("Settlers : " + settlers.keySet());
+        else System.out.println(n + " settlers, from " + settlerName(0) + " to " + settlerName(n-1));
     }
 
     /**
-     * Prints all the settlers in the colony.
+     * Retrieves the default name of the {@code i}-th settler of a colony, i.e. a letter of the alphabet + a number.
+     * @param i the index of the settler (from {@code 0})
+     * @return the name of the settler
+     */
+    static String settlerName(int i) {
+        return String.valueOf(ALPHABET[i%26])+(i/26+1);
+    }
+
+    /**
+     * Retrieves the default name of the {@code i}-th resource of a colony, i.e. {@code R} + a number.
+     * @param i the index of the resource (from {@code 0})
+     * @return the name of the resource
+     */
+    static String resourceName(int i) {
+        return "R" + (i+1);
+    }
+
+    /**
+     * Prints all the settlers in the colony, or a summary and the first page of settlers for a large colony
+     * (see {@link SimulationView#showSettlers()}).
      */
     public void showSettlers() {
-        System.out.println("\n(P = preferences, R = affectation, J = bad relations)\n");
-        for(Settler s : settlers.values()) {
-            System.out.println(s);
-        }
+        new SimulationView(this).showSettlers();
     }
 
     /**
-     * Prints all the jealous settlers in the colony and the number of jealous.
+     * Prints all the jealous settlers in the colony and the number of jealous, or only the first ones if there are
+     * many (see {@link SimulationView#showJealous()}).
      */
     public void showJealous() {
-        int sum = 0;
-        for(Settler s : settlers.values()) {
-            if(s.isJealous()) {
-                sum++;
-                System.out.println(s.getName() + " is jealous");
-            }
-        }
-        System.out.println("\nThere are " + sum + " jealous settlers");
+        new SimulationView(this).showJealous();
     }
 
     /**
@@ -121,13 +138,68 @@ public class Simulation {
      * @return the number of jealous settlers
      */
     public int getJealousNumber() {
-        int sum = 0;
-        for(Settler s : settlers.values()) {
-            if(s.isJealous()) {
-                sum++;
-            }
+        return (int) settlers().filter(Settler::isJealous).count();
+    }
+
+    /**
+     * Retrieves the jealous settlers in the colony, in the order of the settlers.
+     * @return the jealous settlers
+     */
+    List<Settler> getJealousSettlers() {
+        return settlers().filter(Settler::isJealous).toList();
+    }
+
+    /**
+     * Retrieves the stream of the settlers in the colony, parallel if the colony is large enough
+     * (see {@link Simulation#PARALLEL_THRESHOLD}). The order of the settlers is kept.
+     * @return the stream of settlers
+     */
+    private Stream<Settler> settlers() {
+        long relations = 0;
+        for(Settler s : settlers.values()) relations += s.getBadRelations().size();
+        Stream<Settler> stream = settlers.values().stream();
+        return relations >= PARALLEL_THRESHOLD ? stream.parallel() : stream;
+    }
+
+    /**
+     * Sets whether the settlers of this simulation may only rank their top {@code k} preferred resources
+     * (with {@code 1 <= k <= n}, {@code k} being possibly different for each settler). By default, every settler must
+     * rank the {@code n} resources.
+     * <br>
+     * Storing top-{@code k} preferences costs {@code O(nk)} instead of {@code O(n²)}. The resources a settler does not
+     * rank are tied last : holding one of them, it is jealous of any enemy holding a ranked resource,
+     * but not of an enemy holding another unranked resource.
+     * @param topPreferences {@code true} to accept top-{@code k} preferences, {@code false} otherwise
+     */
+    public void setTopPreferences(boolean topPreferences) {
+        this.topPreferences = topPreferences;
+    }
+
+    /**
+     * Indicates whether the settlers of this simulation may only rank their top {@code k} preferred resources.
+     * @return {@code true} if top-{@code k} preferences are accepted, {@code false} otherwise
+     * @see Simulation#setTopPreferences(boolean)
+     */
+    public boolean hasTopPreferences() {
+        return topPreferences;
+    }
+
+    /**
+     * Retrieves a resource that is not affected yet, whatever the preferences of the settlers. This is how a settler
+     * whose top-{@code k} resources are all affected receives one of its (tied last) unranked resources.
+     * <br>
+     * As for {@link Settler#getBestAvailable()}, the search starts from a cursor, reset when the simulation is cleared,
+     * so that successive calls cost {@code O(n)} in total.
+     * @return an available resource, or {@code null} if every resource is affected
+     */
+    public Resource getFirstAvailable() {
+        Resource[] available = resourceTable();
+        for(int pass = 0; pass < 2; pass++) {
+            while(availableCursor < available.length && available[availableCursor].isAffected()) availableCursor++;
+            if(availableCursor < available.length) return available[availableCursor];
+            availableCursor = 0; //a resource may have been released without clearing the simulation
         }
-        return sum;
+        return null;
     }
 
     /**
@@ -192,36 +264,109 @@ public class Simulation {
      * Sets the preferences list for the specified settler in the colony.
      * @param settlerName the name of the settler to set its preferences
      * @param preferencesNames the resource names <b>ordered</b> by the settler's preferences
-     * @throws IllegalArgumentException if
+     * (only the top {@code k} ones if this simulation accepts top-{@code k} preferences)
+     * @throws IllegalArgumentException if a resource is missing, or if the settler or a resource does not exist
      */
     public void setSettlerPreferences(String settlerName, String... preferencesNames) {
-        if(preferencesNames.length != resources.size()) throw new IllegalArgumentException("Missing " + (resources.size()-preferencesNames.length) + " resource(s)");
+        if(topPreferences) {
+            if(preferencesNames.length == 0) throw new IllegalArgumentException("Missing at least 1 resource");
+            if(preferencesNames.length > resources.size()) throw new IllegalArgumentException("Extra " + (preferencesNames.length-resources.size()) + " resource(s)");
+        } else if(preferencesNames.length != resources.size()) throw new IllegalArgumentException("Missing " + (resources.size()-preferencesNames.length) + " resource(s)");
 
         Settler s = settlers.get(settlerName);
         if(s == null) throw new IllegalArgumentException("Settler '" + settlerName + "' does not exist");
 
         //O(n) because a settler have an ordered array of n resources = preferences
-        Resource[] preferences = Arrays.stream(preferencesNames)
-                .map(resourceName -> {
-                    Resource resource = resources.get(resourceName);
-                    if (resource == null) throw new IllegalArgumentException("Resource '" + resourceName + "' does not exist.");
-                    return resource;
-                })
-                .toArray(Resource[]::new);
-
-        s.setPreferences(preferences);
+        int[] preferences = new int[preferencesNames.length];
+        for(int i = 0; i < preferences.length; i++) {
+            Resource resource = resources.get(preferencesNames[i]);
+            if (resource == null) throw new IllegalArgumentException("Resource '" + preferencesNames[i] + "' does not exist.");
+            preferences[i] = positionOf(resource);
+        }
+
+        setPreferences(s, PreferenceOrder.of(resourceTable(), preferences));
+    }
+
+    /**
+     * Sets the order of preference of the specified settler, interned : if a settler of this simulation already has
+     * the same order, the two settlers share it.
+     * @param settler a settler of this simulation
+     * @param preferences an order of the table of this simulation (see {@link Simulation#resourceTable()})
+     */
+    void setPreferences(Settler settler, PreferenceOrder preferences) {
+        PreferenceOrder previous = settler.getPreferenceOrder();
+        settler.setPreferences(intern(preferences));
+        if(previous != null) release(previous);
+    }
+
+    /**
+     * Retrieves the table of the resources of this simulation, in which the orders of preference set with
+     * {@link Simulation#setSettlerPreferences(String, String...)} store the positions of the resources.
+     * The returned array must not be modified.
+     * @return the table of resources
+     */
+    Resource[] resourceTable() {
+        if(table == null) {
+            table = resources.values().toArray(Resource[]::new);
+            positions = new IdentityHashMap<>(table.length);
+            for(int i = 0; i < table.length; i++) positions.put(table[i], i);
+        }
+        return table;
+    }
+
+    /**
+     * Retrieves the position of the specified resource in the table of the resources of this simulation
+     * (see {@link Simulation#resourceTable()}).
+     * @param resource a resource of this simulation
+     * @return the position of the resource
+     */
+    int positionOf(Resource resource) {
+        resourceTable();
+        return positions.get(resource);
+    }
+
+    /**
+     * Retrieves the canonical instance of the specified order of preference : the first instance set with this order,
+     * still used by a settler. The order counts one more settler.
+     * @param preferences an order of preference
+     * @return the instance of this order shared by the settlers of this simulation
+     */
+    private PreferenceOrder intern(PreferenceOrder preferences) {
+        Order order = orders.computeIfAbsent(preferences, Order::new);
+        order.settlers++;
+        return order.preferences;
+    }
+
+    /**
+     * Releases the specified order of preference, no longer used by a settler : once no settler uses it anymore,
+     * it is forgotten. Orders which were not interned are ignored.
+     * @param preferences the canonical instance of the order
+     */
+    private void release(PreferenceOrder preferences) {
+        Order order = orders.get(preferences);
+        if(order == null || order.preferences != preferences) return;
+        if(--order.settlers == 0) orders.remove(preferences);
+    }
+
+    /**
+     * Retrieves the number of distinct orders of preference set with {@link Simulation#setSettlerPreferences(String, String...)}
+     * (or generated by a {@link ColonyGenerator}) and still used by a settler.
+     * @return the number of distinct orders of preference in use
+     */
+    public int getPreferenceOrderCount() {
+        return orders.size();
     }
 
     /**
      * Checks whether this simulation is <i>stable</i> or not. A simulation is stable if each of the {@code n} settlers
-     * has an ordered set of preferences of size {@code n}.
+     * has an ordered set of preferences of size {@code n} (or between {@code 1} and {@code n} with top-{@code k} preferences).
      * @return {@code true} if the simulation is stable, {@code false} otherwise
      */
     public boolean checkIfStable() {
         boolean correct = true;
         int n = resources.size();
         for(Settler settler : settlers.values()) {
-            if(!settler.checkPreferences(n)) correct = false;
+            if(!(topPreferences ? settler.checkTopPreferences(n) : settler.checkPreferences(n))) correct = false;
         }
         return correct;
     }
@@ -232,20 +377,25 @@ public class Simulation {
     public void clear() {
         for(Settler s : settlers.values()) {
             s.setAffectation(null);
+            s.resetCursor();
         }
         for(Resource r : resources.values()) {
             r.setAffected(false);
         }
+        availableCursor = 0;
     }
 
     /**
      * Sets an affection to all settlers, given a {@link Map} where the keys are {@link String} representing a settler's
      * name, and the values are {@link Resource} objects representing its affectation.
+     * The given resources are marked as affected.
      * @param affectations a {@link Map} representing the tuples (settler's name, affectation)
      */
     public void setAffectations(Map<String, Resource> affectations) {
         for(String s : affectations.keySet()) {
-            settlers.get(s).setAffectation(affectations.get(s));
+            Resource resource = affectations.get(s);
+            settlers.get(s).setAffectation(resource);
+            if(resource != null) resource.setAffected(true);
         }
     }
 
@@ -257,6 +407,14 @@ public class Simulation {
         return settlers.values().stream().toList();
     }
 
+    /**
+     * Retrieves the {@link List} of resources in the simulation.
+     * @return the list of resources in the simulation
+     */
+    public List<Resource> getResources() {
+        return resources.values().stream().toList();
+    }
+
     /**
      * Retrieves the {@link Map} of tuples (settler's name, settler object) for this simulation.
      * @return the {@link Map} of tuples (settler's name, settler object) for this simulation.
@@ -264,4 +422,16 @@ public class Simulation {
     public Map<String, Settler> getSettlersMap() {
         return settlers;
     }
+
+    /**
+     * An interned order of preference, and the number of settlers sharing it.
+     */
+    private static final class Order {
+        private final PreferenceOrder preferences;
+        private int settlers;
+
+        private Order(PreferenceOrder preferences) {
+            this.preferences = preferences;
+        }
+    }
 }
@@ -0,0 +1,257 @@
+package main.simulation;
+
+import main.model.Resource;
+import main.model.Settler;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * A simulation view prints a simulation on the standard output, so that it stays readable (and fast to print) for
+ * large colonies : up to {@link SimulationView#SUMMARY_THRESHOLD} settlers, every settler is printed in full, otherwise
+ * the colony is summarized, and can be browsed by pages of compact settlers (a few preferences and enemies each),
+ * by its most jealous settlers, or by the histogram of the ranks of the affectations. The full colony can be dumped
+ * to a file instead.
+ * <br>
+ * Everything is written through a buffer, flushed once per view. The views of the affectations read the
+ * {@link QualityReport} of the view, built once from the colony of the dispatcher of the view, at the first view which
+ * needs it : a {@link SimulationView} describes the affectations at that time.
+ */
+public class SimulationView {
+    private final Simulation simulation;
+    private final Dispatcher dispatcher;
+    private QualityReport report;
+
+    /**
+     * The number of settlers (or jealous settlers) from which the views summarize the colony.
+     */
+    public static final int SUMMARY_THRESHOLD = 50;
+    /**
+     * The number of settlers of a page.
+     */
+    public static final int PAGE_SIZE = 25;
+    /**
+     * The number of jealous settlers printed by the summary of the jealous settlers.
+     */
+    public static final int TOP_JEALOUS = 10;
+    private static final int PREVIEW = 8;
+    private static final int HISTOGRAM_ROWS = 20;
+    private static final int HISTOGRAM_WIDTH = 50;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Constructs a {@link SimulationView} of the specified simulation.
+     * @param simulation the simulation
+     */
+    public SimulationView(Simulation simulation) {
+        this(simulation, new Dispatcher(simulation));
+    }
+
+    /**
+     * Constructs a {@link SimulationView} of the specified simulation, reporting on its affectations from the colony
+     * of the specified dispatcher (see {@link Dispatcher#report()}).
+     * @param simulation the simulation
+     * @param dispatcher the dispatcher of the simulation
+     */
+    public SimulationView(Simulation simulation, Dispatcher dispatcher) {
+        this.simulation = simulation;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Prints the settlers : all of them in full for a small colony, otherwise a summary and the first page.
+     */
+    public void showSettlers() {
+        List<Settler> settlers = simulation.getSettlers();
+        print(out -> {
+            out.println("\n(P = preferences, R = affectation, J = bad relations)\n");
+            if(settlers.size() <= SUMMARY_THRESHOLD) {
+                for(Settler s : settlers) out.println(s);
+                return;
+            }
+            long relations = 0, affected = 0;
+            for(Settler s : settlers) {
+                relations += s.getBadRelations().size();
+                if(s.getAffectation() != null) affected++;
+            }
+            out.println(settlers.size() + " settlers, " + relations/2 + " bad relations, " + affected + " affected settlers");
+            printPage(out, settlers, 0);
+        });
+    }
+
+    /**
+     * Prints a page of settlers, in a compact form (their first preferences and enemies).
+     * @param page the index of the page (from {@code 0}, see {@link SimulationView#getPageCount()})
+     * @throws IllegalArgumentException if there is no such page
+     */
+    public void showPage(int page) {
+        List<Settler> settlers = simulation.getSettlers();
+        if(page < 0 || page >= pageCount(settlers)) {
+            throw new IllegalArgumentException("There are " + pageCount(settlers) + " pages (from 1 to " + pageCount(settlers) + ")");
+        }
+        print(out -> printPage(out, settlers, page));
+    }
+
+    /**
+     * Retrieves the number of pages of settlers.
+     * @return the number of pages
+     */
+    public int getPageCount() {
+        return pageCount(simulation.getSettlers());
+    }
+
+    /**
+     * Prints the jealous settlers and their number : all of them if there are few, otherwise the first
+     * {@link SimulationView#TOP_JEALOUS} ones (see {@link SimulationView#showTopJealous(int)} for the most jealous ones).
+     * The settlers are checked directly (in parallel for a large colony, see {@link Simulation#PARALLEL_THRESHOLD}),
+     * without building the quality report, as this summary is printed after every dispatch and every edit.
+     */
+    public void showJealous() {
+        List<Settler> jealous = simulation.getJealousSettlers();
+        int printed = jealous.size() <= SUMMARY_THRESHOLD ? jealous.size() : TOP_JEALOUS;
+        print(out -> {
+            for(Settler s : jealous.subList(0, printed)) out.println(s.getName() + " is jealous");
+            if(printed < jealous.size()) out.println("... and " + (jealous.size() - printed) + " other jealous settlers");
+            out.println("\nThere are " + jealous.size() + " jealous settlers");
+        });
+    }
+
+    /**
+     * Prints the {@code k} most jealous settlers, i.e. the settlers envying the most enemies.
+     * @param k the number of settlers to print
+     */
+    public void showTopJealous(int k) {
+        QualityReport report = getReport();
+        print(out -> printTopJealous(out, report, k));
+    }
+
+    /**
+     * Prints the histogram of the ranks of the affectations (rank {@code 1} is the top choice of a settler),
+     * in at most {@code 20} rows of ranks.
+     */
+    public void showRankHistogram() {
+        QualityReport report = getReport();
+        int maxRank = Math.max(1, report.getMaxRank());
+        int width = (maxRank + HISTOGRAM_ROWS - 1) / HISTOGRAM_ROWS; //ranks per row
+        long[] rows = new long[(maxRank + width - 1) / width];
+        for(int rank = 1; rank <= maxRank; rank++) rows[(rank-1)/width] += report.getRankCount(rank);
+        long max = Math.max(1, Arrays.stream(rows).max().orElse(0));
+        int notAffected = report.getColony().size() - report.getAffectedNumber();
+        print(out -> {
+            for(int row = 0; row < rows.length; row++) {
+                int from = row*width + 1, to = (row+1)*width;
+                String ranks = width == 1 ? String.valueOf(from) : from + "-" + to;
+                out.printf("rank %-11s : %7d %s%n", ranks, rows[row], "#".repeat((int) (rows[row] * HISTOGRAM_WIDTH / max)));
+            }
+            if(notAffected > 0) out.printf("%-16s : %7d%n", "no resource", notAffected);
+        });
+    }
+
+    /**
+     * Prints the quality report of the affectations (see {@link QualityReport#print(PrintWriter)}).
+     */
+    public void showReport() {
+        print(getReport()::print);
+    }
+
+    /**
+     * Retrieves the quality report of the affectations, built at the first call.
+     * @return the report
+     */
+    public QualityReport getReport() {
+        if(report == null) report = dispatcher.report();
+        return report;
+    }
+
+    /**
+     * Writes every settler in full (see {@link Settler#toString()}), one per line.
+     * @param writer the writer, for example of a file
+     */
+    public void write(Writer writer) {
+        PrintWriter out = new PrintWriter(new BufferedWriter(writer, BUFFER_SIZE));
+        for(Settler s : simulation.getSettlers()) out.println(s);
+        out.flush();
+    }
+
+    /**
+     * Prints a page of settlers, in a compact form.
+     * @param out the output
+     * @param settlers the settlers
+     * @param page the index of the page
+     */
+    private static void printPage(PrintWriter out, List<Settler> settlers, int page) {
+        int from = page*PAGE_SIZE, to = Math.min(settlers.size(), from + PAGE_SIZE);
+        for(Settler s : settlers.subList(from, to)) {
+            out.print(s.getName() + " | P : ");
+            Resource[] preferences = s.getPreferences();
+            printPreview(out, Arrays.asList(preferences).iterator(), preferences.length);
+            out.print(" | R : " + s.getAffectation());
+            if(s.getAffectation() != null) out.print(" (rank " + (s.getAffectationRank()+1) + ")");
+            out.print(" | J : ");
+            printPreview(out, s.getBadRelations().stream().map(Settler::getName).iterator(), s.getBadRelations().size());
+            out.println();
+        }
+        out.println("(page " + (page+1) + "/" + pageCount(settlers) + ")");
+    }
+
+    /**
+     * Prints the first elements of a list, and how many are not printed.
+     * @param out the output
+     * @param elements the elements
+     * @param size the number of elements
+     */
+    private static void printPreview(PrintWriter out, Iterator<?> elements, int size) {
+        out.print('[');
+        for(int i = 0; i < Math.min(size, PREVIEW); i++) {
+            if(i > 0) out.print(", ");
+            out.print(elements.next());
+        }
+        if(size > PREVIEW) out.print(", ... (+" + (size - PREVIEW) + ")");
+        out.print(']');
+    }
+
+    /**
+     * Prints the {@code k} settlers envying the most enemies.
+     * @param out the output
+     * @param report the quality report of the affectations
+     * @param k the number of settlers to print
+     */
+    private static void printTopJealous(PrintWriter out, QualityReport report, int k) {
+        Colony colony = report.getColony();
+        int[] jealous = IntStream.range(0, colony.size()).filter(s -> report.getEnviedCount(s) > 0).boxed()
+                .sorted((a, b) -> Integer.compare(report.getEnviedCount(b), report.getEnviedCount(a)))
+                .mapToInt(Integer::intValue).toArray();
+        for(int i = 0; i < Math.min(k, jealous.length); i++) {
+            Settler settler = colony.getSettler(jealous[i]);
+            out.println(settler.getName() + " is jealous of " + report.getEnviedCount(jealous[i]) + " enemies (holding "
+                    + settler.getAffectation() + ", rank " + report.getRank(jealous[i]) + ")");
+        }
+        if(jealous.length > k) out.println("... and " + (jealous.length - k) + " other jealous settlers");
+    }
+
+    /**
+     * Retrieves the number of pages of the specified settlers.
+     * @param settlers the settlers
+     * @return the number of pages
+     */
+    private static int pageCount(List<Settler> settlers) {
+        return Math.max(1, (settlers.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+    }
+
+    /**
+     * Prints a view on the standard output, through a buffer.
+     * @param view the view, writing into the output
+     */
+    private static void print(Consumer<PrintWriter> view) {
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), BUFFER_SIZE));
+        view.accept(out);
+        out.flush(); //the standard output is not closed
+    }
+}
@@ -0,0 +1,307 @@
+package main.simulation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A solution cache keeps on disk the best known allocation of the colonies already solved, whatever the dispatch
+ * which found it, so that solving the same colony again does not run the dispatch
+ * (see {@link Dispatcher#setSolutionCache(SolutionCache)}).
+ * <br>
+ * An entry is keyed by a canonical hash (SHA-256) of the colony : names of the settlers and resources, preferences,
+ * <i>bad relations</i>, hashed in the order of the names, so that the key does not depend on the order the settlers,
+ * resources and relations were declared in, nor on the indexes of the {@link Colony}. It is stored in its own file of
+ * the cache directory : the number of jealous settlers, then the allocation, as the position (in the order of the
+ * names) of the resource of each settler, in the order of the names ({@code -1} for a settler without resource).
+ * <br>
+ * The cache holds at most {@code maxEntries} entries : the least recently used ones are removed first (the last
+ * modification time of a file is its last use). An entry is verified before it is used : an allocation which is not
+ * valid for the colony, or whose number of jealous settlers is not the stored one, is removed.
+ */
+public class SolutionCache {
+    private final Path directory;
+    private final int maxEntries;
+
+    private static final int MAGIC = 0x4A535353;
+    private static final String EXTENSION = ".sol";
+
+    /**
+     * Constructs a {@link SolutionCache} stored in the specified directory, created if needed.
+     * @param directory the cache directory
+     * @param maxEntries the maximum number of entries
+     * @throws IOException if the directory cannot be created
+     * @throws IllegalArgumentException if the maximum number of entries is not positive
+     */
+    public SolutionCache(Path directory, int maxEntries) throws IOException {
+        if(maxEntries <= 0) throw new IllegalArgumentException("The cache should hold at least one entry");
+        this.directory = Files.createDirectories(directory);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Computes the key of the specified colony.
+     * @param colony the colony
+     * @return the key, as a hexadecimal string
+     */
+    public static String key(Colony colony) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); //every Java platform supports SHA-256
+        }
+        Order order = Order.of(colony);
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        buffer.putInt(colony.size()).putInt(colony.resourceCount());
+        for(int r : order.resources) update(digest, buffer, colony.getResource(r).getName());
+        for(int s : order.settlers) {
+            update(digest, buffer, colony.getSettler(s).getName());
+            int k = colony.preferenceCount(s);
+            putInt(digest, buffer, k);
+            for(int rank = 0; rank < k; rank++) putInt(digest, buffer, order.resourcePositions[colony.preference(s, rank)]);
+            int[] enemies = colony.enemies(s).clone();
+            for(int i = 0; i < enemies.length; i++) enemies[i] = order.settlerPositions[enemies[i]];
+            Arrays.sort(enemies);
+            putInt(digest, buffer, enemies.length);
+            for(int enemy : enemies) putInt(digest, buffer, enemy);
+        }
+        digest.update(buffer.flip());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Writes an integer in the buffer of a digest, which is digested once full.
+     * @param digest the digest
+     * @param buffer the buffer
+     * @param value the integer
+     */
+    private static void putInt(MessageDigest digest, ByteBuffer buffer, int value) {
+        if(buffer.remaining() < Integer.BYTES) {
+            digest.update(buffer.flip());
+            buffer.clear();
+        }
+        buffer.putInt(value);
+    }
+
+    /**
+     * Writes a string in the buffer of a digest, preceded by its length.
+     * @param digest the digest
+     * @param buffer the buffer
+     * @param value the string
+     */
+    private static void update(MessageDigest digest, ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(digest, buffer, bytes.length);
+        digest.update(buffer.flip());
+        buffer.clear();
+        digest.update(bytes);
+    }
+
+    /**
+     * Retrieves the allocation of the specified entry, once verified against the specified colony.
+     * @param key the key of the entry (see {@link SolutionCache#key(Colony)})
+     * @param colony the colony
+     * @return the allocation, as a snapshot (see {@link Assignment#snapshot(int[])}), or {@code null} if there is no
+     *         valid entry for this key
+     * @throws IOException if the entry cannot be read
+     */
+    public int[] get(String key, Colony colony) throws IOException {
+        Path path = path(key);
+        Entry entry = read(path);
+        if(entry == null) return null;
+        int[] allocation = allocation(entry, colony, Order.of(colony));
+        if(allocation == null) {
+            Files.deleteIfExists(path);
+            return null;
+        }
+        Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        return allocation;
+    }
+
+    /**
+     * Stores the specified allocation, unless the entry already holds an allocation with fewer (or as many)
+     * jealous settlers. The least recently used entries are removed if the cache is full.
+     * @param key the key of the entry (see {@link SolutionCache#key(Colony)})
+     * @param colony the colony
+     * @param allocation the allocation, as a snapshot (see {@link Assignment#snapshot(int[])})
+     * @return {@code true} if the allocation was stored, {@code false} otherwise
+     * @throws IOException if the entry cannot be written
+     */
+    public boolean put(String key, Colony colony, int[] allocation) throws IOException {
+        Path path = path(key);
+        int jealous = new Evaluator(colony).getJealousNumber(allocation);
+        Order order = Order.of(colony);
+        Entry entry = read(path);
+        if(entry != null && entry.jealous <= jealous && allocation(entry, colony, order) != null) return false;
+
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * (3 + allocation.length));
+        buffer.putInt(MAGIC).putInt(jealous).putInt(allocation.length);
+        for(int s : order.settlers) buffer.putInt(allocation[s] < 0 ? -1 : order.resourcePositions[allocation[s]]);
+        Path tmp = directory.resolve(key + ".tmp");
+        Files.write(tmp, buffer.array());
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(AtomicMoveNotSupportedException e) {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        evict();
+        return true;
+    }
+
+    /**
+     * Retrieves the number of entries of this cache.
+     * @return the number of entries
+     * @throws IOException if the cache directory cannot be read
+     */
+    public int size() throws IOException {
+        return entries().size();
+    }
+
+    /**
+     * Removes the least recently used entries, until the cache holds at most {@code maxEntries} entries.
+     * @throws IOException if the cache directory cannot be read
+     */
+    private void evict() throws IOException {
+        List<Path> entries = entries();
+        if(entries.size() <= maxEntries) return;
+        List<FileTime> times = new ArrayList<>(entries.size());
+        for(Path entry : entries) times.add(Files.getLastModifiedTime(entry));
+        Integer[] order = new Integer[entries.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparing(times::get));
+        for(int i = 0; i < entries.size() - maxEntries; i++) Files.deleteIfExists(entries.get(order[i]));
+    }
+
+    /**
+     * Retrieves the files of the entries of this cache.
+     * @return the paths of the entries
+     * @throws IOException if the cache directory cannot be read
+     */
+    private List<Path> entries() throws IOException {
+        try(Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(EXTENSION)).toList();
+        }
+    }
+
+    /**
+     * Retrieves the file of the specified entry.
+     * @param key the key of the entry
+     * @return the path of the entry
+     */
+    private Path path(String key) {
+        return directory.resolve(key + EXTENSION);
+    }
+
+    /**
+     * Reads the specified entry.
+     * @param path the path of the entry
+     * @return the entry, or {@code null} if it does not exist or is not an entry file
+     * @throws IOException if the entry cannot be read
+     */
+    private static Entry read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        } catch(NoSuchFileException e) {
+            return null;
+        }
+        if(buffer.remaining() < 3 * Integer.BYTES || buffer.getInt() != MAGIC) return null;
+        int jealous = buffer.getInt();
+        int[] allocation = new int[buffer.getInt()];
+        if(buffer.remaining() != Integer.BYTES * allocation.length) return null;
+        buffer.asIntBuffer().get(allocation);
+        return new Entry(jealous, allocation);
+    }
+
+    /**
+     * Retrieves the allocation of the specified entry, if it is a valid allocation of the specified colony (every
+     * resource given at most once), with the number of jealous settlers it claims.
+     * @param entry the entry
+     * @param colony the colony
+     * @param order the order of the names of the colony
+     * @return the allocation, as a snapshot, or {@code null} if the entry is not valid
+     */
+    private static int[] allocation(Entry entry, Colony colony, Order order) {
+        if(entry.allocation.length != colony.size()) return null;
+        int[] allocation = new int[colony.size()];
+        boolean[] given = new boolean[colony.resourceCount()];
+        for(int i = 0; i < allocation.length; i++) {
+            int r = entry.allocation[i];
+            if(r < -1 || r >= given.length) return null;
+            if(r >= 0) {
+                if(given[r]) return null;
+                given[r] = true;
+            }
+            allocation[order.settlers[i]] = r < 0 ? -1 : order.resources[r];
+        }
+        return new Evaluator(colony).getJealousNumber(allocation) == entry.jealous ? allocation : null;
+    }
+
+    /**
+     * An entry of the cache.
+     * @param jealous the number of jealous settlers of the allocation
+     * @param allocation the allocation, in the order of the names
+     */
+    private record Entry(int jealous, int[] allocation) {}
+
+    /**
+     * The order of the names of the settlers and resources of a colony, which does not depend on their indexes.
+     * @param settlers the indexes of the settlers, in the order of their names
+     * @param settlerPositions the position of each settler in the order of the names
+     * @param resources the indexes of the resources, in the order of their names
+     * @param resourcePositions the position of each resource in the order of the names
+     */
+    private record Order(int[] settlers, int[] settlerPositions, int[] resources, int[] resourcePositions) {
+        /**
+         * Sorts the names of the settlers and resources of the specified colony.
+         * @param colony the colony
+         * @return the order of the names
+         */
+        static Order of(Colony colony) {
+            int[] settlers = sorted(colony.size(), s -> colony.getSettler(s).getName());
+            int[] resources = sorted(colony.resourceCount(), r -> colony.getResource(r).getName());
+            return new Order(settlers, positions(settlers), resources, positions(resources));
+        }
+
+        /**
+         * Sorts indexes by name.
+         * @param n the number of indexes
+         * @param names the name of each index
+         * @return the indexes, in the order of their names
+         */
+        private static int[] sorted(int n, IntFunction<String> names) {
+            String[] keys = new String[n];
+            Arrays.setAll(keys, names);
+            return IntStream.range(0, n).boxed().sorted(Comparator.comparing(i -> keys[i]))
+                    .mapToInt(Integer::intValue).toArray();
+        }
+
+        /**
+         * Computes the position of each index in the specified order.
+         * @param order the indexes
+         * @return the position of each index
+         */
+        private static int[] positions(int[] order) {
+            int[] positions = new int[order.length];
+            for(int i = 0; i < order.length; i++) positions[order[i]] = i;
+            return positions;
+        }
+    }
+}
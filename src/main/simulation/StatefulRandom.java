@@ -0,0 +1,54 @@
+package main.simulation;
+
+import java.io.Serial;
+import java.util.Random;
+
+/**
+ * A source of randomness whose whole state is a single {@code long}, which can be saved and restored
+ * (see {@link Checkpoint}) : a dispatch resumed from a checkpoint draws the same numbers as if it had not been stopped.
+ * <br>
+ * The numbers are generated by the SplitMix64 algorithm. All the methods of {@link Random} draw from it.
+ * It is not thread-safe.
+ */
+class StatefulRandom extends Random {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private long state;
+
+    /**
+     * Constructs a {@link StatefulRandom} with the specified seed.
+     * @param seed the seed, i.e. the initial state
+     */
+    StatefulRandom(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Retrieves the current state of this random.
+     * @return the state
+     */
+    long getState() {
+        return state;
+    }
+
+    /**
+     * Restores a state of this random.
+     * @param state the state, as given by {@link StatefulRandom#getState()}
+     */
+    void setState(long state) {
+        this.state = state;
+    }
+
+    @Override
+    public long nextLong() {
+        long z = (state += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (Long.SIZE - bits));
+    }
+}
@@ -1,7 +1,17 @@
 package main.ui;
 
 import main.simulation.Dispatcher;
+import main.simulation.ProgressListener;
 import main.simulation.Simulation;
+import main.simulation.SimulationView;
+import main.simulation.SolutionCache;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * This class represents an interactive menu which the user can quit at any time by pressing {@code quit}.
@@ -9,9 +19,18 @@ import main.simulation.Simulation;
 public abstract class CLIMenu {
     protected final CLIReader reader;
     protected Simulation simulation;
+    private Dispatcher dispatcher;
+    private SolutionCache solutionCache;
+    private boolean kernelized;
     protected static final String INPUT_ONE = "1";
     protected static final String INPUT_TWO = "2";
     protected static final String INPUT_THREE = "3";
+    protected static final String INPUT_FOUR = "4";
+    protected static final String INPUT_FIVE = "5";
+    protected static final String INPUT_SIX = "6";
+    private static final long PROGRESS_INTERVAL = 200;
+    private static final long INPUT_POLL_INTERVAL = 100;
+    private static final String STOP = "stop";
 
     /**
      * Constructs a {@link CLIMenu} by initializing a {@link CLIReader}.
@@ -35,12 +54,33 @@ public abstract class CLIMenu {
         while(reader.isOpen()) display();
     }
 
+    /**
+     * Sets the cache of the solutions found by the dispatcher menu (see {@link Dispatcher#setSolutionCache(SolutionCache)}).
+     * @param solutionCache the cache, or {@code null} to disable it
+     */
+    public void setSolutionCache(SolutionCache solutionCache) {
+        this.solutionCache = solutionCache;
+        if(dispatcher != null) dispatcher.setSolutionCache(solutionCache);
+    }
+
+    /**
+     * Sets whether the dispatcher menu reduces the simulation to its kernel before each dispatch
+     * (see {@link Dispatcher#kernelize()}). By default, it does not.
+     * @param kernelized {@code true} to dispatch the kernel, {@code false} to dispatch every settler
+     */
+    public void setKernelized(boolean kernelized) {
+        this.kernelized = kernelized;
+    }
+
     /**
      * Prints the dispatcher menu, asking the user whether algorithm he wants to use (linear, MAX-LEF, ...).
+     * Every algorithm starts from a cleared simulation, except the repair, which starts from the current affectations.
+     * The same dispatcher is kept for a simulation, so that a repair only rebuilds what changed since its previous dispatch.
      */
     protected void showDispatcherMenu() {
         boolean correct;
-        Dispatcher dispatcher = new Dispatcher(simulation);
+        Dispatcher dispatcher = dispatcher();
+        if(kernelized) System.out.println(dispatcher.kernelize());
 
         do {
             correct = true;
@@ -51,7 +91,11 @@ public abstract class CLIMenu {
                     
                     \t2. MAX-LEF p-approx (k)\
                     
-                    \t3. switch (k)
+                    \t3. switch (k)\
+                    
+                    \t4. MAX-LEF p-approx with adaptive order (k)\
+                    
+                    \t5. repair the current affectations (k)
                     """
             );
             String res = reader.readInput();
@@ -60,6 +104,7 @@ public abstract class CLIMenu {
                 case INPUT_ONE:
                     // assign with linear algorithm
                     System.out.println("Linear dispatch : ");
+                    simulation.clear();
                     dispatcher.linearDispatch();
                     break;
                 case INPUT_TWO:
@@ -67,11 +112,24 @@ public abstract class CLIMenu {
                     System.out.println("""
                             
                             MAX-LEF dispatch :\s""");
-                    dispatcher.maxLEFDispatch(simulation.getSettlers().size());
+                    simulation.clear();
+                    dispatcher.setOrdering(Dispatcher.Ordering.RANDOM);
+                    runInBackground(() -> dispatcher.maxLEFDispatch(simulation.getSettlers().size()));
                     break;
                 case INPUT_THREE:
                     System.out.println("Switch (brute force) dispatch : ");
-                    dispatcher.switchDispatch(simulation.getSettlers().size());
+                    simulation.clear();
+                    runInBackground(() -> dispatcher.switchDispatch(simulation.getSettlers().size()));
+                    break;
+                case INPUT_FOUR:
+                    System.out.println("MAX-LEF dispatch with adaptive order : ");
+                    simulation.clear();
+                    dispatcher.setOrdering(Dispatcher.Ordering.ADAPTIVE);
+                    runInBackground(() -> dispatcher.maxLEFDispatch(simulation.getSettlers().size()));
+                    break;
+                case INPUT_FIVE:
+                    System.out.println("Repair dispatch : ");
+                    dispatcher.repairDispatch(simulation.getSettlers().size());
                     break;
                 default:
                     System.out.println("Incorrect input : " + res);
@@ -84,6 +142,126 @@ public abstract class CLIMenu {
         simulation.showJealous();
     }
 
+    /**
+     * Prints the view menu, asking the user which view of the simulation to print : a page of settlers, the most
+     * jealous settlers, the histogram of the ranks of the affectations, the quality report of the affectations
+     * (see {@link main.simulation.QualityReport}), printed or written into a file, or a full dump of the settlers into a file.
+     * These views stay readable for large colonies, where {@link Simulation#showSettlers()} only prints a summary.
+     */
+    protected void showViewMenu() {
+        SimulationView view = new SimulationView(simulation, dispatcher());
+        System.out.println("""
+                Please select a view :\
+                
+                \t1. a page of settlers\
+                
+                \t2. the most jealous settlers (k)\
+                
+                \t3. the histogram of the ranks of the affectations\
+                
+                \t4. dump all the settlers into a file\
+                
+                \t5. the quality report of the affectations (ranks, envied enemies)\
+                
+                \t6. write the quality report into a file (CSV for a .csv file, JSON otherwise)""");
+        String res = reader.readInput();
+        try {
+            switch(res) {
+                case INPUT_ONE:
+                    System.out.println("Page (from 1 to " + view.getPageCount() + ")?");
+                    view.showPage(reader.readInteger() - 1);
+                    break;
+                case INPUT_TWO:
+                    System.out.println("How many settlers?");
+                    view.showTopJealous(reader.readInteger());
+                    break;
+                case INPUT_THREE:
+                    view.showRankHistogram();
+                    break;
+                case INPUT_FOUR:
+                    System.out.println("File name?");
+                    try(FileWriter writer = new FileWriter(reader.readInput())) {
+                        view.write(writer);
+                    }
+                    System.out.println("Saved!");
+                    break;
+                case INPUT_FIVE:
+                    view.showReport();
+                    break;
+                case INPUT_SIX:
+                    System.out.println("File name?");
+                    view.getReport().write(new File(reader.readInput()));
+                    System.out.println("Saved!");
+                    break;
+                default:
+                    System.out.println("Incorrect input : " + res);
+                    break;
+            }
+        } catch(IllegalArgumentException | IOException e) { //including NumberFormatException
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the dispatcher of the simulation, created at the first call.
+     * @return the dispatcher
+     */
+    private Dispatcher dispatcher() {
+        if(dispatcher == null) {
+            dispatcher = new Dispatcher(simulation);
+            dispatcher.setSolutionCache(solutionCache);
+        }
+        return dispatcher;
+    }
+
+    /**
+     * Runs an iterative dispatch on a worker (virtual) thread, while the user can still type : {@code stop} stops the
+     * dispatch, which keeps its best allocation so far, and {@code quit} quits the program. The progress of the
+     * dispatch is printed meanwhile. Returns once the dispatch is over.
+     * @param dispatch the dispatch to run
+     */
+    private void runInBackground(Runnable dispatch) {
+        AtomicBoolean stopped = new AtomicBoolean();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        dispatcher.setProgressListener(progress -> printProgress(progress) && !stopped.get(), PROGRESS_INTERVAL);
+        System.out.println("(type '" + STOP + "' to stop the dispatch and keep its best affectations so far)");
+
+        Thread worker = Thread.ofVirtual().name("dispatch").start(() -> {
+            try {
+                dispatch.run();
+            } catch(RuntimeException e) {
+                failure.set(e);
+            }
+        });
+        try {
+            while(worker.isAlive()) {
+                String input = reader.pollInput(INPUT_POLL_INTERVAL);
+                if(input != null && input.equalsIgnoreCase(STOP) && !stopped.getAndSet(true)) {
+                    System.out.println("\nStopping...");
+                }
+            }
+        } catch(NoSuchElementException e) { //no more input, the dispatch can only finish
+            try {
+                worker.join();
+            } catch(InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        dispatcher.setProgressListener(null, 0);
+        if(failure.get() != null) throw failure.get();
+    }
+
+    /**
+     * Prints the progress of a dispatch on a single line, rewritten at each progress.
+     * @param progress the progress of the dispatch
+     * @return {@code true}, the dispatch goes on
+     */
+    private static boolean printProgress(ProgressListener.Progress progress) {
+        System.out.printf("\r%s : %d/%d, best %d jealous settler(s) (%.1f s)%s", progress.dispatch(), progress.iteration(),
+                progress.iterations(), progress.jealous(), progress.elapsedNanos() / 1e9, progress.done() ? "\n" : "");
+        return true;
+    }
+
     /**
      * Displays the menu. This method runs as long the {@link CLIReader} is open
      * or until its {@link OnReaderClosedListener} is called back.
@@ -4,17 +4,28 @@ import java.io.Closeable;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * This class is a utility class for standard input using a {@link Scanner}.
+ * <br>
+ * The input can also be polled with a timeout (see {@link CLIReader#pollInput(long)}), so that the user can type while
+ * a task runs : from the first poll, the lines are read ahead by a background thread, which then owns the scanner
+ * (closing the reader does not wait for the line this thread is blocked on).
  */
 public class CLIReader implements Closeable {
     private final Scanner scanner;
-    private boolean isOpen;
+    private volatile boolean isOpen;
     private OnReaderClosedListener onReaderClosedListener;
+    private BlockingQueue<String> lines;
+
+    private static final String END_OF_INPUT = new String("EOF"); //compared by identity
 
     /**
      * Constructs a new {@link CLIReader} by initializing a new {@link Scanner} for the standard input stream.
@@ -34,13 +45,76 @@ public class CLIReader implements Closeable {
      */
     public String readInput() {
         String res;
-        do res = scanner.nextLine();
+        do res = nextLine();
         while (res.isEmpty());
         if(res.equalsIgnoreCase("quit")) close();
 
         return res;
     }
 
+    /**
+     * Reads the next line, waiting at most for the specified time.
+     * @param timeoutMillis the maximum time to wait, in milliseconds
+     * @return the next line as a {@link String}, or {@code null} if no line was typed in time
+     * @throws NoSuchElementException if the input is exhausted
+     */
+    public String pollInput(long timeoutMillis) {
+        if(lines == null) readAhead();
+        String res;
+        try {
+            do res = lines.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            while(res != null && res.isEmpty());
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if(res == END_OF_INPUT) {
+            lines.add(END_OF_INPUT);
+            throw new NoSuchElementException("No line found");
+        }
+        if(res != null && res.equalsIgnoreCase("quit")) close();
+        return res;
+    }
+
+    /**
+     * Reads the next line, from the scanner, or from the lines read ahead once {@link CLIReader#pollInput(long)} was called.
+     * @return the next line
+     * @throws NoSuchElementException if the input is exhausted
+     */
+    private String nextLine() {
+        if(lines == null) return scanner.nextLine();
+        String line;
+        try {
+            line = lines.take();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NoSuchElementException("Interrupted while reading");
+        }
+        if(line == END_OF_INPUT) {
+            lines.add(END_OF_INPUT);
+            throw new NoSuchElementException("No line found");
+        }
+        return line;
+    }
+
+    /**
+     * Starts reading the lines ahead, in a background (daemon) thread. This thread closes the scanner once the reader
+     * is closed.
+     */
+    private void readAhead() {
+        lines = new LinkedBlockingQueue<>();
+        Thread thread = new Thread(() -> {
+            try {
+                while(isOpen) lines.add(scanner.nextLine());
+                scanner.close();
+            } catch(NoSuchElementException | IllegalStateException e) { //end of input
+                lines.add(END_OF_INPUT);
+            }
+        }, "cli-reader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     /**
      * Reads the next line and parses the result as an integer.
      * @return an integer read from the line
@@ -89,10 +163,14 @@ public class CLIReader implements Closeable {
         return isOpen;
     }
 
+    /**
+     * Closes this reader. Once the lines are read ahead, the scanner is closed by the background thread, as it may be
+     * blocked reading a line : the reader is closed at once, without waiting for this line.
+     */
     @Override
     public void close() {
-        this.scanner.close();
         this.isOpen = false;
+        if(lines == null) this.scanner.close();
         if(onReaderClosedListener != null) this.onReaderClosedListener.onReaderClosed();
     }
 }
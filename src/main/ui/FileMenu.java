@@ -1,8 +1,10 @@
 package main.ui;
 
 import main.simulation.Simulation;
+import main.file_manager.AffectationsReader;
 import main.file_manager.AffectationsWriter;
 
+import java.io.File;
 import java.io.IOException;
 
 /**
@@ -34,16 +36,25 @@ public class FileMenu extends CLIMenu {
                 
                 \t1. resolution\
                 
-                \t2. save yours affectations""");
+                \t2. save yours affectations\
+                
+                \t3. load affectations (then repair them in the resolution)\
+                
+                \t4. views of the colony (pages, jealous settlers, ranks, quality report, dump)""");
         String res = reader.readInput();
         switch(res) {
             case INPUT_ONE:
-                simulation.clear();
                 showDispatcherMenu();
                 break;
             case INPUT_TWO:
                 showSaveMenu();
                 break;
+            case INPUT_THREE:
+                showLoadMenu();
+                break;
+            case INPUT_FOUR:
+                showViewMenu();
+                break;
             default:
                 System.out.println("Incorrect input : " + res);
                 break;
@@ -69,4 +80,20 @@ public class FileMenu extends CLIMenu {
             }
         }while(!correct);
     }
+
+    /**
+     * Prompts the user for a file name and uses an {@link AffectationsReader} to load the affectations it holds,
+     * which can then be repaired by the dispatcher menu.
+     */
+    private void showLoadMenu() {
+        System.out.println("File name?");
+        String path = reader.readInput();
+        try(AffectationsReader affectationsReader = new AffectationsReader(new File(path))) {
+            affectationsReader.load(simulation);
+            simulation.showSettlers();
+            simulation.showJealous();
+        } catch(IllegalArgumentException | IOException il) {
+            System.out.println(il.getMessage());
+        }
+    }
 }
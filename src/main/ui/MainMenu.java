@@ -144,7 +144,8 @@ public class MainMenu extends CLIMenu {
     }
 
     /**
-     * Prints the submenu, prompting the user his choice for the next step (switch, see jealous, go back to the dispatcher menu).
+     * Prints the submenu, prompting the user his choice for the next step (switch, see jealous, go back to the dispatcher menu,
+     * add a relation, which can then be repaired by the dispatcher menu).
      */
     private void showSubMenu() {
         System.out.println("Now you can change affectations and see jealous settlers");
@@ -157,7 +158,11 @@ public class MainMenu extends CLIMenu {
                     
                     \t2. see all jealous settlers\
                     
-                    \t3. choose another algorithm"""
+                    \t3. choose another algorithm\
+                    
+                    \t4. add a relation between two settlers\
+                    
+                    \t5. views of the colony (pages, jealous settlers, ranks, quality report, dump)"""
             );
             String res = reader.readInput();
 
@@ -171,11 +176,17 @@ public class MainMenu extends CLIMenu {
                     simulation.showJealous();
                     break;
                 case INPUT_THREE:
-                    simulation.clear();
                     showDispatcherMenu();
                     break;
+                case INPUT_FOUR:
+                    askRelations();
+                    simulation.showJealous();
+                    break;
+                case INPUT_FIVE:
+                    showViewMenu();
+                    break;
                 default:
-                    System.out.println("Invalid input (select 1, 2 or 3)");
+                    System.out.println("Invalid input (select 1, 2, 3, 4 or 5)");
                     break;
             }
         } while(reader.isOpen());
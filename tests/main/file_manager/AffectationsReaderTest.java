@@ -0,0 +1,87 @@
+package main.file_manager;
+
+import main.model.Settler;
+import main.simulation.ColonyGenerator;
+import main.simulation.Dispatcher;
+import main.simulation.Simulation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AffectationsReaderTest {
+
+    private static Simulation simulation() {
+        Simulation simulation = new Simulation(2);
+        simulation.setSettlerPreferences("A1", "R1", "R2");
+        simulation.setSettlerPreferences("B1", "R2", "R1");
+        return simulation;
+    }
+
+    @Test
+    @DisplayName("Saved affectations are loaded back")
+    public void savedAffectationsAreLoaded() throws IOException {
+        ColonyGenerator generator = new ColonyGenerator(100, 20);
+        generator.setSeed(8);
+        Simulation simulation = generator.generate();
+        new Dispatcher(simulation).maxLEFDispatch(10);
+        File file = File.createTempFile("affectations_file", "");
+        new AffectationsWriter(simulation, file.getPath()).saveSimulation();
+        int jealous = simulation.getJealousNumber();
+
+        simulation.clear();
+        try(AffectationsReader reader = new AffectationsReader(file)) {
+            reader.load(simulation);
+        }
+        assertEquals(jealous, simulation.getJealousNumber());
+        for(Settler settler : simulation.getSettlers()) {
+            assertNotNull(settler.getAffectation());
+            assertTrue(settler.getAffectation().isAffected());
+        }
+    }
+
+    @Test
+    @DisplayName("Settlers without resource are loaded")
+    public void settlerWithoutResource() throws IOException {
+        Simulation simulation = simulation();
+        try(AffectationsReader reader = new AffectationsReader(new StringReader("A1:R2\nB1:null\n"))) {
+            reader.load(simulation);
+        }
+        Map<String, Settler> settlers = simulation.getSettlersMap();
+        assertEquals("R2", settlers.get("A1").getAffectation().getName());
+        assertEquals(1, settlers.get("A1").getAffectationRank());
+        assertNull(settlers.get("B1").getAffectation());
+    }
+
+    @Test
+    @DisplayName("Lines in any order, with blanks, CRLF, longer than the buffer or without final line break are read")
+    public void linesAreParsed() throws IOException {
+        Simulation simulation = simulation();
+        String content = "\r\n  B1:R1 \r\n" + " ".repeat(200_000) + "A1:R2";
+        try(AffectationsReader reader = new AffectationsReader(new StringReader(content))) {
+            reader.load(simulation);
+        }
+        Map<String, Settler> settlers = simulation.getSettlersMap();
+        assertEquals("R2", settlers.get("A1").getAffectation().getName());
+        assertEquals("R1", settlers.get("B1").getAffectation().getName());
+    }
+
+    @Test
+    @DisplayName("Invalid affectations are rejected without modifying the simulation")
+    public void invalidAffectations() {
+        for(String content : new String[] {"A1:R1\nB1:R1\n", "A1:R1\n", "A1:R1\nA1:R2\nB1:R2\n", "A1:R1\nC1:R2\n", "A1:R3\nB1:R2\n", "A1 R1\n"}) {
+            Simulation simulation = simulation();
+            assertThrows(ColonyFileFormatException.class, () -> {
+                try(AffectationsReader reader = new AffectationsReader(new StringReader(content))) {
+                    reader.load(simulation);
+                }
+            });
+            for(Settler settler : simulation.getSettlers()) assertNull(settler.getAffectation());
+        }
+    }
+}
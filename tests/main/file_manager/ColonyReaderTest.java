@@ -40,7 +40,7 @@ public class ColonyReaderTest {
     }
 
     private File correctFile, missingPointFile, invalidMethodNameFile, invalidMethodArgumentFile, invalidOrderFile,
-            missingResourceFile, invalidPreferencesCountFile;
+            missingResourceFile, invalidPreferencesCountFile, topPreferencesFile;
     private static final String CORRECT_FILE_CONTENT = """
             colon(Dark Vador).
             colon(Dartagnan).
@@ -166,6 +166,22 @@ public class ColonyReaderTest {
             preferences(Zoooooo,Pomme,Big Mac,Orange,Tarte au citron).
     """;
 
+    private static final String TOP_PREFERENCES_CONTENT = """
+            colon(Dark Vador).
+            colon(Dartagnan).
+            colon(Zoooooo).
+            colon(Tartatin).
+            ressource(Pomme).
+            ressource(Big Mac).
+            ressource(Tarte au citron).
+            ressource(Orange).
+            deteste(Dark Vador,Dartagnan).
+            preferences(Dark Vador,Big Mac).
+            preferences(Dartagnan,Big Mac,Orange).
+            preferences(Tartatin,Pomme,Tarte au citron,Big Mac,Orange).
+            preferences(Zoooooo,Pomme).
+    """;
+
     @BeforeEach
     public void setup() throws IOException {
         writeColonyFile(correctFile = File.createTempFile("simple_colony_file", ""), CORRECT_FILE_CONTENT);
@@ -175,6 +191,7 @@ public class ColonyReaderTest {
         writeColonyFile(invalidOrderFile = File.createTempFile("invalid_order_file", ""), INVALID_METHODS_ORDER_CONTENT);
         writeColonyFile(missingResourceFile = File.createTempFile("missing_resource_file", ""), MISSING_RESOURCE_CONTENT);
         writeColonyFile(invalidPreferencesCountFile = File.createTempFile("invalid_preferences_file", ""), INVALID_PREFERENCES_CONTENT);
+        writeColonyFile(topPreferencesFile = File.createTempFile("top_preferences_file", ""), TOP_PREFERENCES_CONTENT);
     }
 
     private void writeColonyFile(File file, String content) throws IOException {
@@ -263,6 +280,21 @@ public class ColonyReaderTest {
         assertEquals("Number of resources must equal number of settlers, but there are 4 distinct names for 3 distinct resources", ie.getMessage());
     }
 
+    @Test
+    @DisplayName("Reader accepts top-k preferences only when asked to")
+    public void readFileWithTopPreferences() throws IOException {
+        ColonyFileFormatException ie = assertThrowsExactly(
+                ColonyFileFormatException.class, () -> initReader(topPreferencesFile));
+        assertEquals("At line 10 : Missing 3 argument(s) for preferences(Dark Vador,Big Mac)", ie.getMessage());
+
+        try(ColonyReader cr = new ColonyReader(topPreferencesFile, true)) {
+            Simulation simulation = assertDoesNotThrow(cr::initSimulation);
+            assertTrue(simulation.hasTopPreferences());
+            assertEquals(1, simulation.getSettlersMap().get("Dark Vador").getPreferences().length);
+            assertEquals(4, simulation.getSettlersMap().get("Tartatin").getPreferences().length);
+        }
+    }
+
     private void initReader(File file) throws IOException {
         try(ColonyReader cr = new ColonyReader(file)) {
             cr.initSimulation();
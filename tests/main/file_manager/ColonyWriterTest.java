@@ -0,0 +1,101 @@
+package main.file_manager;
+
+import main.model.Settler;
+import main.simulation.ColonyGenerator;
+import main.simulation.PreferenceModel;
+import main.simulation.RelationModel;
+import main.simulation.Simulation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColonyWriterTest {
+
+    private static void assertSameColony(Simulation expected, Simulation actual) {
+        Map<String, Settler> e = expected.getSettlersMap(), a = actual.getSettlersMap();
+        assertEquals(e.keySet(), a.keySet());
+        for(String name : e.keySet()) {
+            assertEquals(Arrays.toString(e.get(name).getPreferences()), Arrays.toString(a.get(name).getPreferences()));
+            assertEquals(e.get(name).getBadRelations().stream().map(Settler::getName).sorted().toList(),
+                    a.get(name).getBadRelations().stream().map(Settler::getName).sorted().toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Written colony is read back identically")
+    public void writtenColonyIsReadBack() throws IOException, ColonyFileFormatException {
+        ColonyGenerator generator = new ColonyGenerator(60, 10);
+        generator.setSeed(7);
+        generator.setRelationModel(RelationModel.communities(3, 0.2));
+        generator.setPreferenceModel(PreferenceModel.mallows(0.8));
+        Simulation simulation = generator.generate();
+
+        File file = File.createTempFile("written_colony_file", "");
+        try(ColonyWriter writer = new ColonyWriter(file)) {
+            writer.write(simulation);
+        }
+
+        Simulation read;
+        try(ColonyReader reader = new ColonyReader(file)) {
+            read = reader.initSimulation();
+        }
+        assertSameColony(simulation, read);
+    }
+
+    @Test
+    @DisplayName("Writer follows the order of the sections")
+    public void writerFollowsSectionsOrder() throws IOException {
+        try(ColonyWriter writer = new ColonyWriter(new StringWriter())) {
+            assertThrowsExactly(IllegalStateException.class, () -> writer.writeResource("R1"));
+            writer.writeSettler("A1");
+            writer.writeResource("R1");
+            writer.writePreferences("A1", "R1");
+            assertThrowsExactly(IllegalStateException.class, () -> writer.writeBadRelation("A1", "A1"));
+        }
+    }
+
+    @Test
+    @DisplayName("Streamed colony is the generated colony")
+    public void streamedColonyIsGeneratedColony() throws IOException, ColonyFileFormatException {
+        ColonyGenerator generator = new ColonyGenerator(50, 12);
+        generator.setSeed(11);
+        generator.setRelationModel(RelationModel.powerLaw(2.5));
+        Simulation simulation = generator.generate();
+
+        File file = File.createTempFile("streamed_colony_file", "");
+        try(ColonyWriter writer = new ColonyWriter(file)) {
+            generator.write(writer);
+        }
+
+        Simulation read;
+        try(ColonyReader reader = new ColonyReader(file)) {
+            read = reader.initSimulation();
+        }
+        assertSameColony(simulation, read);
+    }
+
+    @Test
+    @DisplayName("Large colony with a shared order is read back")
+    public void largeColonyIsReadBack() throws IOException, ColonyFileFormatException {
+        final int n = 3000;
+        ColonyGenerator generator = new ColonyGenerator(n, 10);
+        generator.setPreferenceModel(PreferenceModel.mallows(0));
+        File file = File.createTempFile("large_colony_file", "");
+        try(ColonyWriter writer = new ColonyWriter(file)) {
+            generator.write(writer);
+        }
+
+        try(ColonyReader reader = new ColonyReader(file)) {
+            Simulation simulation = reader.initSimulation();
+            assertEquals(n, simulation.getSettlers().size());
+            assertEquals(1, simulation.getPreferenceOrderCount());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package main.file_manager;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuotingTest {
+
+    @Test
+    @DisplayName("JSON strings escape quotes, backslashes and control characters")
+    public void json() {
+        assertEquals("\"A1\"", Quoting.json("A1"));
+        assertEquals("\"a \\\"b\\\" \\\\ c\\u000a\"", Quoting.json("a \"b\" \\ c\n"));
+    }
+
+    @Test
+    @DisplayName("CSV fields are only quoted when needed")
+    public void csv() {
+        assertEquals("A1", Quoting.csv("A1"));
+        assertEquals("\"A1,B1\"", Quoting.csv("A1,B1"));
+        assertEquals("\"a \"\"b\"\"\"", Quoting.csv("a \"b\""));
+    }
+}
@@ -0,0 +1,66 @@
+package main.metrics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import main.file_manager.ColonyReader;
+import main.file_manager.ColonyWriter;
+import main.simulation.ColonyGenerator;
+import main.simulation.Dispatcher;
+import main.simulation.Simulation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlightRecorderEventsTest {
+
+    private static long count(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).count();
+    }
+
+    @Test
+    @DisplayName("Loading and dispatching emit the enabled flight recorder events")
+    public void recordedEvents() throws IOException {
+        File file = File.createTempFile("colony", ".txt");
+        file.deleteOnExit();
+        try(ColonyWriter writer = new ColonyWriter(file)) {
+            ColonyGenerator generator = new ColonyGenerator(50, 10);
+            generator.setSeed(2);
+            generator.write(writer);
+        }
+
+        Path dump = Files.createTempFile("dispatch", ".jfr");
+        try(Recording recording = new Recording()) {
+            for(String name : List.of("jss.ColonyLoad", "jss.MaxLEFInstance", "jss.IndependentSet", "jss.Switch", "jss.BestSolution")) {
+                recording.enable(name);
+            }
+            recording.start();
+            Simulation simulation;
+            try(ColonyReader reader = new ColonyReader(file)) {
+                simulation = reader.initSimulation();
+            }
+            Dispatcher dispatcher = new Dispatcher(simulation);
+            dispatcher.maxLEFDispatch(10);
+            simulation.clear();
+            dispatcher.switchDispatch(500);
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        Files.delete(dump);
+        assertEquals(1, count(events, "jss.ColonyLoad"));
+        assertEquals(10, count(events, "jss.MaxLEFInstance"));
+        assertTrue(count(events, "jss.IndependentSet") >= 10);
+        assertTrue(count(events, "jss.BestSolution") >= 2);
+        assertEquals(50, events.stream().filter(event -> event.getEventType().getName().equals("jss.ColonyLoad"))
+                .findFirst().orElseThrow().getInt("settlers"));
+    }
+}
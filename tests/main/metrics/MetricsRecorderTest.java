@@ -0,0 +1,129 @@
+package main.metrics;
+
+import main.file_manager.ColonyReader;
+import main.file_manager.ColonyWriter;
+import main.simulation.ColonyGenerator;
+import main.simulation.Dispatcher;
+import main.simulation.Simulation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsRecorderTest {
+
+    private Simulation simulation() {
+        ColonyGenerator generator = new ColonyGenerator(100, 30);
+        generator.setSeed(3);
+        return generator.generate();
+    }
+
+    @Test
+    @DisplayName("Dispatches report their counters, timers and best-so-far trace")
+    public void dispatchMetrics() {
+        Simulation simulation = simulation();
+        MetricsRecorder metrics = new MetricsRecorder();
+        Dispatcher dispatcher = new Dispatcher(simulation);
+        dispatcher.setMetrics(metrics);
+
+        dispatcher.maxLEFDispatch(25);
+        assertEquals(25, metrics.getCounter("maxlef.instances"));
+        assertEquals(25, metrics.getTimerCount("maxlef.instance"));
+        assertTrue(metrics.getSampleCount("maxlef.independent_set") >= 25);
+
+        simulation.clear();
+        dispatcher.switchDispatch(200);
+        assertTrue(metrics.getCounter("switch.swaps.accepted") <= metrics.getCounter("switch.swaps.evaluated"));
+        assertEquals(1, metrics.getTimerCount("linear"));
+
+        //the trace of each dispatch only improves
+        List<MetricsRecorder.Best> trace = metrics.getTrace();
+        for(int i = 1; i < trace.size(); i++) {
+            if(trace.get(i).dispatch().equals(trace.get(i-1).dispatch())) {
+                assertTrue(trace.get(i).jealous() < trace.get(i-1).jealous());
+            }
+        }
+        assertEquals(simulation.getJealousNumber(), trace.get(trace.size()-1).jealous());
+    }
+
+    @Test
+    @DisplayName("The full evaluations of the jealousy are counted apart from the instances")
+    public void fullEvaluations() {
+        Simulation simulation = simulation();
+        MetricsRecorder metrics = new MetricsRecorder();
+        Dispatcher dispatcher = new Dispatcher(simulation);
+        dispatcher.setMetrics(metrics);
+        dispatcher.maxLEFDispatch(25);
+        assertEquals(25, metrics.getCounter("maxlef.evaluations")); //one count per instance
+
+        //the adaptive order checks the settlers of each new best order, and the listener receives a last count
+        metrics.reset();
+        simulation.clear();
+        dispatcher.setOrdering(Dispatcher.Ordering.ADAPTIVE);
+        dispatcher.setProgressListener(progress -> true, 0);
+        dispatcher.maxLEFDispatch(25);
+        long bests = metrics.getTrace().stream().filter(best -> best.dispatch().equals("maxlef")).count();
+        assertTrue(bests > 0);
+        assertTrue(metrics.getCounter("maxlef.evaluations") >= metrics.getCounter("maxlef.instances") + bests + 1);
+        assertNotEquals(metrics.getCounter("maxlef.instances"), metrics.getCounter("maxlef.evaluations"));
+
+        simulation.clear();
+        dispatcher.switchDispatch(200);
+        assertEquals(1, metrics.getCounter("switch.evaluations"));
+        dispatcher.repairDispatch(200);
+        assertEquals(1, metrics.getCounter("repair.evaluations"));
+    }
+
+    @Test
+    @DisplayName("The colony reader reports each section")
+    public void readerMetrics() throws IOException {
+        File file = File.createTempFile("colony", ".txt");
+        file.deleteOnExit();
+        try(ColonyWriter writer = new ColonyWriter(file)) {
+            new ColonyGenerator(20, 5).write(writer);
+        }
+        MetricsRecorder metrics = new MetricsRecorder();
+        try(ColonyReader reader = new ColonyReader(file, false, metrics)) {
+            reader.initSimulation();
+        }
+        assertEquals(20, metrics.getCounter("reader.settlers.lines"));
+        assertEquals(20, metrics.getCounter("reader.resources.lines"));
+        assertEquals(20, metrics.getCounter("reader.preferences.lines"));
+        assertEquals(1, metrics.getTimerCount("reader.bad_relations"));
+    }
+
+    @Test
+    @DisplayName("Metrics are exported to JSON and CSV")
+    public void export() throws IOException {
+        MetricsRecorder metrics = new MetricsRecorder();
+        metrics.count("a \"counter\"", 3);
+        metrics.time("phase", 10);
+        metrics.time("phase", 30);
+        metrics.sample("size", 4);
+        metrics.best("dispatch,1", 2, 5, 100);
+
+        StringWriter json = new StringWriter();
+        metrics.writeJson(json);
+        assertTrue(json.toString().contains("\"a \\\"counter\\\"\": 3"));
+        assertTrue(json.toString().contains("\"phase\": {\"count\": 2, \"sum\": 40, \"min\": 10, \"max\": 30}"));
+        assertTrue(json.toString().contains("{\"dispatch\": \"dispatch,1\", \"iteration\": 2, \"jealous\": 5, \"elapsedNanos\": 100}"));
+
+        StringWriter csv = new StringWriter();
+        metrics.writeCsv(csv);
+        assertEquals("""
+                kind,name,count,sum,min,max
+                counter,"a ""counter\"\"",3,,,
+                timer,phase,2,40,10,30
+                distribution,size,1,4,4,4
+                """, csv.toString());
+
+        StringWriter trace = new StringWriter();
+        metrics.writeTraceCsv(trace);
+        assertEquals("dispatch,iteration,jealous,elapsed_ns\n\"dispatch,1\",2,5,100\n", trace.toString());
+    }
+}
@@ -0,0 +1,45 @@
+package main.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreferenceOrderTest {
+    private static Resource[] table(int n) {
+        Resource[] table = new Resource[n];
+        for(int i = 0; i < n; i++) table[i] = new Resource("R" + (i+1));
+        return table;
+    }
+
+    @Test
+    @DisplayName("An order keeps the positions of its resources, whatever the size of the table")
+    void positions() {
+        for(int n : new int[]{3, 256, 257, 65536, 65537}) {
+            Resource[] table = table(n);
+            int[] positions = {n-1, 0, n/2};
+            PreferenceOrder order = PreferenceOrder.of(table, positions);
+            assertEquals(3, order.length());
+            for(int rank = 0; rank < 3; rank++) {
+                assertEquals(positions[rank], order.position(rank));
+                assertSame(table[positions[rank]], order.get(rank));
+                assertEquals(rank, order.rankOf(table[positions[rank]], 3));
+            }
+            assertEquals(-1, order.rankOf(table[n/2], 2));
+        }
+    }
+
+    @Test
+    @DisplayName("Orders are equal if they rank the same positions of the same table")
+    void equality() {
+        Resource[] table = table(5);
+        PreferenceOrder order = PreferenceOrder.of(table, new int[]{2, 0, 1});
+        assertEquals(order, PreferenceOrder.of(table, new int[]{2, 0, 1}));
+        assertEquals(order.hashCode(), PreferenceOrder.of(table, new int[]{2, 0, 1}).hashCode());
+        assertNotEquals(order, PreferenceOrder.of(table, new int[]{2, 1, 0}));
+        assertNotEquals(order, PreferenceOrder.of(table(5), new int[]{2, 0, 1}));
+
+        PreferenceOrder own = PreferenceOrder.of(table[2], table[0], table[1]);
+        assertArrayEquals(order.toArray(), own.toArray());
+    }
+}
@@ -124,4 +124,45 @@ class SettlerTest {
 
         assertTrue(s1.checkPreferences(n));
     }
+
+    @Test
+    @DisplayName("Retrieves the best available resource, skipping the affected ones")
+    void getBestAvailableSkipsAffectedResources() {
+        final int n = 3;
+        Resource[] preferences = new Resource[n];
+        for(int i = 0; i<n; i++) {
+            preferences[i] = new Resource("R"+i);
+        }
+        Settler s1 = new Settler("A1", preferences);
+
+        assertEquals(preferences[0], s1.getBestAvailable());
+        preferences[0].setAffected(true);
+        preferences[1].setAffected(true);
+        assertEquals(preferences[2], s1.getBestAvailable());
+        preferences[2].setAffected(true);
+        assertNull(s1.getBestAvailable());
+
+        //released resources are only seen again once the cursor is reset
+        preferences[0].setAffected(false);
+        s1.resetCursor();
+        assertEquals(preferences[0], s1.getBestAvailable());
+    }
+
+    @Test
+    @DisplayName("Unranked resources are tied last with top-k preferences")
+    void topPreferencesAreTiedLast() {
+        Resource r1 = new Resource("R1"), r2 = new Resource("R2"), r3 = new Resource("R3");
+        Settler s1 = new Settler("A1", new Resource[]{r1});
+        Settler s2 = new Settler("A2", new Resource[]{r2});
+        s1.addBadRelation(s2);
+        assertTrue(s1.checkTopPreferences(3));
+        assertFalse(s1.checkPreferences(3));
+
+        s1.setAffectation(r3);
+        s2.setAffectation(r2);
+        assertEquals(1, s1.getAffectationRank());
+        assertFalse(s1.isJealous()); //R2 is as good as R3 for A1
+        s2.setAffectation(r1);
+        assertTrue(s1.isJealous());
+    }
 }
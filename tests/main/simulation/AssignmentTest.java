@@ -0,0 +1,115 @@
+package main.simulation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AssignmentTest {
+
+    private Colony colony() {
+        Simulation simulation = new Simulation(2);
+        simulation.setSettlerPreferences("A1", "R1", "R2");
+        simulation.setSettlerPreferences("B1", "R1", "R2");
+        simulation.setBadRelations("A1", "B1");
+        return Colony.of(simulation);
+    }
+
+    @Test
+    @DisplayName("Clearing an assignment releases every resource")
+    public void clearReleasesResources() {
+        Colony colony = colony();
+        Assignment assignment = new Assignment(colony);
+        assignment.affect(0, 0);
+        assignment.affect(1, 1);
+        assertTrue(assignment.isAffected(0));
+        assertEquals(1, assignment.resourceOf(1));
+
+        assignment.clear();
+        assertFalse(assignment.isAffected(0));
+        assertFalse(assignment.isAffected(1));
+        assertEquals(-1, assignment.resourceOf(0));
+        assertEquals(-1, assignment.resourceOf(1));
+    }
+
+    @Test
+    @DisplayName("Best available resource is reset on clear")
+    public void bestAvailableAfterClear() {
+        Colony colony = colony();
+        Assignment assignment = new Assignment(colony);
+        int top = colony.preference(0, 0);
+        assignment.affect(1, top);
+        assertEquals(colony.preference(0, 1), assignment.bestAvailable(0));
+
+        assignment.clear();
+        assertEquals(top, assignment.bestAvailable(0));
+    }
+
+    @Test
+    @DisplayName("Restore a snapshot")
+    public void snapshotAndRestore() {
+        Colony colony = colony();
+        Assignment assignment = new Assignment(colony);
+        assignment.affect(0, 1);
+        assignment.affect(1, 0);
+        int jealous = assignment.getJealousNumber();
+        int[] snapshot = new int[colony.size()];
+        assignment.snapshot(snapshot);
+
+        assignment.clear();
+        assertEquals(0, assignment.getJealousNumber());
+
+        assignment.restore(snapshot);
+        assertEquals(1, assignment.resourceOf(0));
+        assertEquals(0, assignment.resourceOf(1));
+        assertEquals(jealous, assignment.getJealousNumber());
+    }
+
+    @Test
+    @DisplayName("Unranked resources are tied last with top-k preferences")
+    public void topPreferencesAreTiedLast() {
+        Simulation simulation = new Simulation(3);
+        simulation.setTopPreferences(true);
+        simulation.setSettlerPreferences("A1", "R1");
+        simulation.setSettlerPreferences("B1", "R1");
+        simulation.setSettlerPreferences("C1", "R3", "R1");
+        simulation.setBadRelations("A1", "B1");
+        simulation.setBadRelations("A1", "C1");
+        Colony colony = Colony.of(simulation);
+        int a = colony.indexOf(simulation.getSettlersMap().get("A1"));
+        int b = colony.indexOf(simulation.getSettlersMap().get("B1"));
+        int c = colony.indexOf(simulation.getSettlersMap().get("C1"));
+        int r1 = colony.indexOf(colony.getSettler(a).getPreferences()[0]);
+        int r3 = colony.indexOf(colony.getSettler(c).getPreferences()[0]);
+        assertEquals(1, colony.rank(a, r3));
+        assertEquals(1, colony.rank(c, r1));
+
+        Assignment assignment = new Assignment(colony);
+        assignment.affect(c, r3);
+        assignment.affect(b, assignment.bestAvailable(b));
+        int fallback = assignment.bestAvailable(a);
+        assertTrue(fallback >= 0 && fallback != r1 && fallback != r3);
+        assignment.affect(a, fallback);
+        assertTrue(assignment.isJealous(a)); //B1 holds its top choice
+        assertFalse(assignment.isJealous(c));
+    }
+
+    @Test
+    @DisplayName("Jealous settlers of a large colony are counted in parallel")
+    public void parallelJealousNumber() {
+        ColonyGenerator generator = new ColonyGenerator(1500, 400);
+        generator.setSeed(3);
+        Simulation simulation = generator.generate();
+        new Dispatcher(simulation).linearDispatch();
+        Colony colony = Colony.of(simulation);
+        assertTrue(colony.relationCount() >= Simulation.PARALLEL_THRESHOLD);
+
+        Assignment assignment = new Assignment(colony);
+        assignment.restore(colony.affectations());
+        int sequential = 0;
+        for(int s = 0; s < colony.size(); s++) if(assignment.isJealous(s)) sequential++;
+        assertEquals(sequential, assignment.getJealousNumber());
+        assertEquals(sequential, new JealousyTracker(assignment).getJealousNumber());
+        assertEquals(sequential, simulation.getJealousNumber());
+    }
+}
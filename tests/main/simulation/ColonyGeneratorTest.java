@@ -0,0 +1,153 @@
+package main.simulation;
+
+import main.model.Settler;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColonyGeneratorTest {
+
+    private final int n = 100, d = 20;
+
+    private static Simulation generate(int n, int d, long seed, boolean parallel) {
+        ColonyGenerator generator = new ColonyGenerator(n, d);
+        generator.setSeed(seed);
+        generator.setParallel(parallel);
+        return generator.generate();
+    }
+
+    @Test
+    @DisplayName("Generated colony is stable")
+    public void generatedColonyIsStable() {
+        Simulation simulation = generate(n, d, 1, false);
+        assertEquals(n, simulation.getSettlers().size());
+        assertTrue(simulation.checkIfStable());
+    }
+
+    @Test
+    @DisplayName("Generated relations are symmetric")
+    public void generatedRelationsAreSymmetric() {
+        Simulation simulation = generate(n, d, 2, false);
+        for(Settler s : simulation.getSettlers()) {
+            assertFalse(s.getBadRelations().contains(s));
+            for(Settler enemy : s.getBadRelations()) {
+                assertTrue(enemy.getBadRelations().contains(s));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Same seed gives the same colony, sequentially or in parallel")
+    public void sameSeedSameColony() {
+        Map<String, Settler> s1 = generate(n, d, 3, false).getSettlersMap();
+        Map<String, Settler> s2 = generate(n, d, 3, true).getSettlersMap();
+        for(String name : s1.keySet()) {
+            Settler a = s1.get(name), b = s2.get(name);
+            assertEquals(Arrays.toString(a.getPreferences()), Arrays.toString(b.getPreferences()));
+            assertEquals(a.getBadRelations().stream().map(Settler::getName).sorted().toList(),
+                    b.getBadRelations().stream().map(Settler::getName).sorted().toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Density cannot exceed the colony size")
+    public void densityGreaterThanSize() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> new ColonyGenerator(10, 11));
+    }
+
+    @Test
+    @DisplayName("Mallows model without dispersion gives the reference order")
+    public void mallowsWithoutDispersion() {
+        ColonyGenerator generator = new ColonyGenerator(n, d);
+        generator.setPreferenceModel(PreferenceModel.mallows(0));
+        Simulation simulation = generator.generate();
+        for(Settler s : simulation.getSettlers()) {
+            for(int i = 0; i < n; i++) assertEquals("R" + (i+1), s.getPreferences()[i].getName());
+        }
+        //the identical orders are interned
+        assertEquals(1, simulation.getPreferenceOrderCount());
+        assertSame(simulation.getSettlers().get(0).getPreferenceOrder(), simulation.getSettlers().get(1).getPreferenceOrder());
+    }
+
+    @Test
+    @DisplayName("Structured models give valid colonies")
+    public void structuredModelsGiveValidColonies() {
+        RelationModel[] models = {RelationModel.powerLaw(2.5), RelationModel.communities(4, 0.1)};
+        for(RelationModel model : models) {
+            ColonyGenerator generator = new ColonyGenerator(n, d);
+            generator.setSeed(4);
+            generator.setRelationModel(model);
+            generator.setPreferenceModel(PreferenceModel.mallows(0.5));
+            Simulation simulation = generator.generate();
+            for(Settler s : simulation.getSettlers()) {
+                assertFalse(s.getBadRelations().contains(s));
+                assertEquals(n, Arrays.stream(s.getPreferences()).distinct().count());
+                for(Settler enemy : s.getBadRelations()) assertTrue(enemy.getBadRelations().contains(s));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A relation model can be shared by colonies of different sizes")
+    public void sharedRelationModel() {
+        RelationModel model = RelationModel.powerLaw(2.5);
+        RelationModel.Sampler small = model.sampler(10, 5);
+        RelationModel.Sampler large = model.sampler(1000, 50);
+        SplittableRandom random = new SplittableRandom(6);
+        for(int i = 0; i < 10; i++) {
+            for(int j : small.sample(i, random)) assertTrue(j >= 0 && j < 10 && j != i);
+            for(int j : large.sample(i, random)) assertTrue(j >= 0 && j < 1000 && j != i);
+        }
+    }
+
+    @Test
+    @DisplayName("Relations are sampled without duplicates, even when nearly every settler is drawn")
+    public void relationsWithoutDuplicates() {
+        SplittableRandom random = new SplittableRandom(8);
+        for(int population : new int[]{1, 7, 64, 1000}) {
+            int[] values = new int[population];
+            RelationModel.floyd(random, values, 0, population, population);
+            Arrays.sort(values);
+            for(int v = 0; v < population; v++) assertEquals(v, values[v]);
+        }
+
+        RelationModel.Sampler sampler = RelationModel.powerLaw(2.1).sampler(9, 9);
+        for(int i = 0; i < 9; i++) {
+            int settler = i;
+            int[] enemies = sampler.sample(settler, random);
+            assertEquals(enemies.length, Arrays.stream(enemies).distinct().filter(j -> j >= 0 && j < 9 && j != settler).count());
+        }
+    }
+
+    @Test
+    @DisplayName("A preference model can be shared by colonies of different sizes")
+    public void sharedPreferenceModel() {
+        PreferenceModel model = PreferenceModel.mallows(0.5);
+        SplittableRandom random = new SplittableRandom(7);
+        for(int n : new int[]{10, 1000, 10}) {
+            int[] order = model.sample(n, random);
+            assertEquals(n, order.length);
+            assertEquals(n, Arrays.stream(order).distinct().filter(r -> r >= 0 && r < n).count());
+        }
+    }
+
+    @Test
+    @DisplayName("Community relations stay inside the communities without mixing")
+    public void communityRelationsStayInside() {
+        ColonyGenerator generator = new ColonyGenerator(n, d);
+        generator.setSeed(5);
+        generator.setRelationModel(RelationModel.communities(4, 0));
+        Map<String, Settler> settlers = generator.generate().getSettlersMap();
+        Map<Settler, Integer> community = new HashMap<>();
+        for(int i = 0; i < n; i++) community.put(settlers.get(Simulation.settlerName(i)), i * 4 / n);
+        for(Settler s : settlers.values()) {
+            for(Settler enemy : s.getBadRelations()) assertEquals(community.get(s), community.get(enemy));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package main.simulation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColoringTest {
+
+    private static void assertIsColoring(Colony colony, int[][] classes) {
+        int[] color = new int[colony.size()];
+        java.util.Arrays.fill(color, -1);
+        for(int c = 0; c < classes.length; c++) {
+            for(int s : classes[c]) {
+                assertEquals(-1, color[s], "settler in several classes");
+                color[s] = c;
+            }
+        }
+        for(int s = 0; s < colony.size(); s++) {
+            assertNotEquals(-1, color[s]);
+            for(int enemy : colony.enemies(s)) assertNotEquals(color[s], color[enemy]);
+        }
+    }
+
+    @Test
+    @DisplayName("Classes of a coloring are independent and cover every settler")
+    public void classesAreIndependent() {
+        Colony colony = Colony.of(Simulation.random(26, 10));
+        int[] order = new int[colony.size()];
+        for(int i = 0; i < order.length; i++) order[i] = i;
+
+        assertIsColoring(colony, new Coloring(colony, order.length).classes(order));
+    }
+
+    @Test
+    @DisplayName("First class is taken greedily in order")
+    public void firstClassIsGreedy() {
+        Simulation simulation = new Simulation(3);
+        simulation.setSettlerPreferences("A1", "R1", "R2", "R3");
+        simulation.setSettlerPreferences("B1", "R1", "R2", "R3");
+        simulation.setSettlerPreferences("C1", "R1", "R2", "R3");
+        simulation.setBadRelations("A1", "B1");
+        Colony colony = Colony.of(simulation);
+        int a = colony.indexOf(simulation.getSettlersMap().get("A1"));
+        int b = colony.indexOf(simulation.getSettlersMap().get("B1"));
+        int c = colony.indexOf(simulation.getSettlersMap().get("C1"));
+
+        int[][] classes = new Coloring(colony, 3).classes(new int[]{a, b, c});
+        assertEquals(2, classes.length);
+        assertArrayEquals(new int[]{a, c}, classes[0]);
+        assertArrayEquals(new int[]{b}, classes[1]);
+    }
+
+    @Test
+    @DisplayName("A reused coloring gives the same classes as a new one")
+    public void reusedColoring() {
+        Colony colony = Colony.of(Simulation.random(26, 10));
+        int[] order = new int[colony.size()];
+        for(int i = 0; i < order.length; i++) order[i] = i;
+        Coloring coloring = new Coloring(colony, order.length);
+
+        Random random = new Random(4);
+        for(int t = 0; t < 5; t++) {
+            Dispatcher.shuffle(order, random);
+            int[][] expected = new Coloring(colony, order.length).classes(order);
+            coloring.start(order);
+            for(int[] I : expected) {
+                assertTrue(coloring.hasNextClass());
+                int size = coloring.nextClass();
+                assertArrayEquals(I, java.util.Arrays.copyOf(coloring.independents(), size));
+            }
+            assertFalse(coloring.hasNextClass());
+        }
+    }
+
+    @Test
+    @DisplayName("Precomputed colorings are colorings")
+    public void precomputedColorings() {
+        Colony colony = Colony.of(Simulation.random(26, 10));
+        int[] settlers = new int[colony.size()];
+        for(int i = 0; i < settlers.length; i++) settlers[i] = i;
+
+        int[][][] colorings = Coloring.precompute(colony, settlers, 4, new Random());
+        assertEquals(4, colorings.length);
+        for(int[][] classes : colorings) assertIsColoring(colony, classes);
+    }
+}
@@ -1,9 +1,21 @@
 package main.simulation;
 
+import main.metrics.MetricsRecorder;
+import main.model.PreferenceOrder;
+import main.model.Resource;
 import main.model.Settler;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class DispatcherTest {
@@ -42,4 +54,246 @@ public class DispatcherTest {
             assertNotNull(settler.getAffectation());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("MAX-LEF dispatch with adaptive order affects resources")
+    public void maxLEFAdaptiveDispatchEverySettler() {
+        Simulation simulation = Simulation.random(n, d);
+        Dispatcher dispatcher = new Dispatcher(simulation);
+        dispatcher.setOrdering(Dispatcher.Ordering.ADAPTIVE);
+        dispatcher.maxLEFDispatch(n);
+        for(Settler settler : simulation.getSettlers()) {
+            assertNotNull(settler.getAffectation());
+        }
+    }
+
+    @Test
+    @DisplayName("Dispatches affect distinct resources with top-k preferences")
+    public void dispatchWithTopPreferences() {
+        ColonyGenerator generator = new ColonyGenerator(n, d);
+        generator.setTopPreferences(3);
+        Simulation simulation = generator.generate();
+        Dispatcher dispatcher = new Dispatcher(simulation);
+        dispatcher.kernelize();
+
+        dispatcher.linearDispatch();
+        assertEquals(n, simulation.getSettlers().stream().map(Settler::getAffectation).distinct().filter(Objects::nonNull).count());
+        simulation.clear();
+        dispatcher.maxLEFDispatch(n);
+        assertEquals(n, simulation.getSettlers().stream().map(Settler::getAffectation).distinct().filter(Objects::nonNull).count());
+    }
+
+    @Test
+    @DisplayName("Repair dispatch keeps a complete allocation and does not increase jealousy")
+    public void repairDispatchAfterEdits() {
+        ColonyGenerator generator = new ColonyGenerator(200, 40);
+        generator.setSeed(4);
+        Simulation simulation = generator.generate();
+        Dispatcher dispatcher = new Dispatcher(simulation);
+        dispatcher.maxLEFDispatch(20);
+
+        //a new feud, and a settler who lost its resource
+        List<Settler> settlers = simulation.getSettlers();
+        simulation.setBadRelations(settlers.get(0).getName(), settlers.get(1).getName());
+        settlers.get(2).getAffectation().setAffected(false);
+        settlers.get(2).setAffectation(null);
+        int jealous = simulation.getJealousNumber();
+
+        dispatcher.repairDispatch(simulation.getSettlers().size());
+        assertEquals(settlers.size(), settlers.stream().map(Settler::getAffectation).distinct().filter(Objects::nonNull).count());
+        assertTrue(simulation.getJealousNumber() <= jealous);
+    }
+
+    @Test
+    @DisplayName("A report reads the colony of the dispatcher, and the next repair still checks the settlers edited before it")
+    public void reportBeforeRepair() {
+        long[] checked = new long[2];
+        for(int reports = 0; reports < 2; reports++) {
+            ColonyGenerator generator = new ColonyGenerator(200, 3);
+            generator.setSeed(4);
+            Simulation simulation = generator.generate();
+            Dispatcher dispatcher = new Dispatcher(simulation);
+            dispatcher.setSeed(3);
+            MetricsRecorder metrics = new MetricsRecorder();
+            dispatcher.setMetrics(metrics);
+            dispatcher.maxLEFDispatch(20);
+            int jealous = simulation.getJealousNumber();
+
+            //new feuds between settlers who do not envy each other, far from the jealous settlers :
+            //the repair checks the settlers concerned, without any switch
+            List<Settler> settlers = simulation.getSettlers();
+            for(int feuds = 0, s = 0; feuds < 2; s += 2) {
+                Settler a = settlers.get(s), b = settlers.get(s+1);
+                if(a.getBadRelations().contains(b) || envies(a, b) || envies(b, a)) continue;
+                if(Stream.of(a, b).flatMap(settler -> Stream.concat(Stream.of(settler), settler.getBadRelations().stream()))
+                        .anyMatch(Settler::isJealous)) continue;
+                simulation.setBadRelations(a.getName(), b.getName());
+                if(reports == 1) assertEquals(jealous, dispatcher.report().getJealousNumber());
+                feuds++;
+            }
+
+            dispatcher.repairDispatch(settlers.size());
+            assertEquals(0, metrics.getCounter("repair.swaps.evaluated"));
+            checked[reports] = metrics.getCounter("repair.settlers.checked");
+        }
+        assertTrue(checked[0] > 0 && checked[0] < 200);
+        assertEquals(checked[0], checked[1]);
+    }
+
+    private static boolean envies(Settler settler, Settler enemy) {
+        PreferenceOrder preferences = settler.getPreferenceOrder();
+        return preferences.rankOf(enemy.getAffectation(), preferences.length()) < preferences.rankOf(settler.getAffectation(), preferences.length());
+    }
+
+    @Test
+    @DisplayName("A colony updated after new relations matches a colony built again")
+    public void colonyUpdate() {
+        ColonyGenerator generator = new ColonyGenerator(50, 10);
+        generator.setSeed(6);
+        Simulation simulation = generator.generate();
+        Colony colony = Colony.of(simulation);
+        List<Settler> settlers = simulation.getSettlers();
+        simulation.setBadRelations(settlers.get(3).getName(), settlers.get(4).getName());
+
+        Colony updated = colony.update(simulation);
+        Colony built = Colony.of(simulation);
+        assertEquals(built.relationCount(), updated.relationCount());
+        for(int s = 0; s < built.size(); s++) {
+            assertEquals(Set.of(Arrays.stream(built.enemies(s)).boxed().toArray()), Set.of(Arrays.stream(updated.enemies(s)).boxed().toArray()));
+            for(int r = 0; r < built.resourceCount(); r++) assertEquals(built.rank(s, r), updated.rank(s, r));
+        }
+    }
+
+    @Test
+    @DisplayName("A dispatch resumed from a checkpoint gives the same result as an uninterrupted one")
+    public void resumeFromCheckpoint() throws IOException {
+        ColonyGenerator generator = new ColonyGenerator(100, 30);
+        generator.setSeed(8);
+        Simulation simulation = generator.generate();
+        File file = File.createTempFile("dispatch", ".jssc");
+        file.deleteOnExit();
+
+        for(int mode = 0; mode < 4; mode++) {
+            Dispatcher dispatcher = new Dispatcher(simulation);
+            dispatcher.setSeed(42);
+            if(mode == 2) dispatcher.setOrdering(Dispatcher.Ordering.ADAPTIVE);
+            if(mode == 3) dispatcher.setPrecomputedColorings(3);
+
+            simulation.clear();
+            dispatch(dispatcher, mode, 40);
+            List<Resource> expected = simulation.getSettlers().stream().map(Settler::getAffectation).toList();
+
+            simulation.clear();
+            dispatcher.setCheckpoint(file, 10);
+            dispatch(dispatcher, mode, 20);
+            dispatcher.setCheckpoint(null, 0);
+
+            simulation.clear();
+            dispatcher.resume(file);
+            dispatch(dispatcher, mode, 40);
+            assertEquals(expected, simulation.getSettlers().stream().map(Settler::getAffectation).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("The repair dispatch tries at most k switches, kept or not")
+    public void repairDispatchBound() {
+        ColonyGenerator generator = new ColonyGenerator(200, 40);
+        generator.setSeed(10);
+        Simulation simulation = generator.generate();
+        new Dispatcher(simulation).linearDispatch();
+        List<Settler> settlers = simulation.getSettlers();
+        Resource[] allocation = settlers.stream().map(Settler::getAffectation).toArray(Resource[]::new);
+
+        for(int k = 1; k <= 5; k++) {
+            //every settler takes the resource of the next one, so that many switches are kept
+            for(int s = 0; s < settlers.size(); s++) settlers.get(s).setAffectation(allocation[(s + 1) % allocation.length]);
+            Dispatcher dispatcher = new Dispatcher(simulation);
+            MetricsRecorder metrics = new MetricsRecorder();
+            dispatcher.setMetrics(metrics);
+            dispatcher.repairDispatch(k);
+            assertTrue(metrics.getCounter("repair.swaps.evaluated") <= k);
+            assertTrue(metrics.getCounter("repair.swaps.accepted") <= metrics.getCounter("repair.swaps.evaluated"));
+        }
+    }
+
+    @Test
+    @DisplayName("An unbounded repair dispatch leaves no switch of a jealous settler with an envied enemy that improves the allocation")
+    public void repairDispatchLocalOptimum() {
+        for(long seed = 10; seed < 15; seed++) {
+            ColonyGenerator generator = new ColonyGenerator(200, 40);
+            generator.setSeed(seed);
+            Simulation simulation = generator.generate();
+            new Dispatcher(simulation).linearDispatch();
+            List<Settler> settlers = simulation.getSettlers();
+            Resource[] allocation = settlers.stream().map(Settler::getAffectation).toArray(Resource[]::new);
+            for(int s = 0; s < settlers.size(); s++) settlers.get(s).setAffectation(allocation[(s + 1) % allocation.length]);
+            new Dispatcher(simulation).repairDispatch(Integer.MAX_VALUE);
+
+            Colony colony = Colony.of(simulation);
+            Assignment assignment = new Assignment(colony);
+            assignment.restore(colony.affectations());
+            JealousyTracker tracker = new JealousyTracker(assignment);
+            for(int p = 0; p < colony.size(); p++) {
+                if(!tracker.isJealous(p)) continue;
+                int rank = colony.rank(p, assignment.resourceOf(p));
+                for(int q : colony.enemies(p)) {
+                    if(colony.rank(p, assignment.resourceOf(q)) >= rank) continue;
+                    int jealous = tracker.getJealousNumber();
+                    tracker.swap(p, q);
+                    assertTrue(tracker.getJealousNumber() >= jealous);
+                    tracker.swap(p, q);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("The checkpoints are written even if the dispatch fails")
+    public void checkpointOnFailure() throws IOException {
+        ColonyGenerator generator = new ColonyGenerator(100, 30);
+        generator.setSeed(9);
+        Dispatcher dispatcher = new Dispatcher(generator.generate());
+        File file = File.createTempFile("dispatch", ".jssc");
+        file.deleteOnExit();
+        dispatcher.setCheckpoint(file, 5);
+        dispatcher.setProgressListener(progress -> {
+            if(progress.iteration() == 15) throw new IllegalStateException("failure");
+            return true;
+        }, 0);
+
+        assertThrows(IllegalStateException.class, () -> dispatcher.maxLEFDispatch(40));
+        assertEquals(15, Checkpoint.read(file.toPath()).iteration);
+    }
+
+    private static void dispatch(Dispatcher dispatcher, int mode, int iterations) {
+        if(mode == 0) dispatcher.switchDispatch(iterations);
+        else dispatcher.maxLEFDispatch(iterations);
+    }
+
+    @Test
+    @DisplayName("A progress listener follows the best solution and can stop a dispatch")
+    public void progressListener() {
+        Simulation simulation = Simulation.random(n, d);
+        Dispatcher dispatcher = new Dispatcher(simulation);
+        List<ProgressListener.Progress> reports = new ArrayList<>();
+        dispatcher.setProgressListener(progress -> reports.add(progress), 0);
+
+        dispatcher.maxLEFDispatch(20);
+        assertEquals(20, reports.size()); //one per instance after the first, and the last one
+        for(int i = 1; i < reports.size(); i++) assertTrue(reports.get(i).jealous() <= reports.get(i-1).jealous());
+        ProgressListener.Progress last = reports.get(reports.size()-1);
+        assertTrue(last.done());
+        assertEquals(20, last.iteration());
+        assertEquals(simulation.getJealousNumber(), last.jealous());
+
+        reports.clear();
+        dispatcher.setProgressListener(progress -> reports.add(progress) && progress.iteration() < 5, 0);
+        simulation.clear();
+        dispatcher.maxLEFDispatch(20);
+        last = reports.get(reports.size()-1);
+        assertTrue(last.done());
+        assertEquals(5, last.iteration());
+        for(Settler settler : simulation.getSettlers()) assertNotNull(settler.getAffectation());
+    }
+}
@@ -0,0 +1,63 @@
+package main.simulation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluatorTest {
+
+    private int[][] candidates(Colony colony, int count) {
+        int[][] candidates = new int[count][];
+        Assignment assignment = new Assignment(colony);
+        for(int c = 0; c < count; c++) {
+            assignment.clear();
+            //each candidate starts the greedy assignment from a different settler
+            for(int i = 0; i < colony.size(); i++) {
+                int s = (i + 7*c) % colony.size();
+                assignment.affect(s, assignment.bestAvailable(s));
+            }
+            candidates[c] = new int[colony.size()];
+            assignment.snapshot(candidates[c]);
+        }
+        return candidates;
+    }
+
+    @Test
+    @DisplayName("A batch of candidates is evaluated as each candidate alone")
+    public void batchEvaluation() {
+        ColonyGenerator generator = new ColonyGenerator(200, 60);
+        generator.setSeed(2);
+        Colony colony = Colony.of(generator.generate());
+        int[][] candidates = candidates(colony, 20);
+        Evaluator evaluator = new Evaluator(colony);
+
+        int[] numbers = evaluator.getJealousNumbers(candidates);
+        BitSet[] settlers = evaluator.getJealousSettlers(candidates);
+        int[] buffer = new int[candidates.length * colony.size()];
+        for(int c = 0; c < candidates.length; c++) System.arraycopy(candidates[c], 0, buffer, c * colony.size(), colony.size());
+        assertArrayEquals(numbers, evaluator.getJealousNumbers(buffer));
+
+        Assignment assignment = new Assignment(colony);
+        for(int c = 0; c < candidates.length; c++) {
+            assignment.restore(candidates[c]);
+            assertEquals(assignment.getJealousNumber(), numbers[c]);
+            assertEquals(numbers[c], settlers[c].cardinality());
+            assertEquals(settlers[c], evaluator.getJealousSettlers(candidates[c]));
+            for(int s = 0; s < colony.size(); s++) assertEquals(assignment.isJealous(s), settlers[c].get(s));
+        }
+    }
+
+    @Test
+    @DisplayName("Invalid candidates are rejected")
+    public void invalidCandidates() {
+        Colony colony = Colony.of(Simulation.random(5, 3));
+        Evaluator evaluator = new Evaluator(colony);
+        assertThrows(IllegalArgumentException.class, () -> evaluator.getJealousNumber(new int[4]));
+        assertThrows(IllegalArgumentException.class, () -> evaluator.getJealousNumbers(new int[][] {{0, 1, 2, 3, 5}}));
+        assertThrows(IllegalArgumentException.class, () -> evaluator.getJealousNumbers(new int[7]));
+        assertEquals(0, evaluator.getJealousNumber(new int[] {-1, -1, -1, -1, -1}));
+    }
+}
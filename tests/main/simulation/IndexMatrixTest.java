@@ -0,0 +1,38 @@
+package main.simulation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndexMatrixTest {
+
+    @Test
+    @DisplayName("Indexes take the narrowest width for their bound")
+    public void narrowestWidth() {
+        assertEquals(1, IndexMatrix.width(256));
+        assertEquals(2, IndexMatrix.width(257));
+        assertEquals(2, IndexMatrix.width(65536));
+        assertEquals(4, IndexMatrix.width(65537));
+    }
+
+    @Test
+    @DisplayName("Indexes are stored and retrieved, on-heap and off-heap")
+    public void storeAndRetrieve() {
+        for(int bound : new int[]{200, 60000, 100000}) {
+            for(boolean offHeap : new boolean[]{false, true}) {
+                IndexMatrix matrix = IndexMatrix.of(3, bound, offHeap);
+                matrix.allocate(0, 4);
+                matrix.allocate(2, 1);
+                assertEquals(4, matrix.length(0));
+                assertEquals(0, matrix.length(1));
+                matrix.set(0, 3, bound-1);
+                matrix.set(0, 0, 0);
+                matrix.set(2, 0, bound/2);
+                assertEquals(bound-1, matrix.get(0, 3));
+                assertEquals(0, matrix.get(0, 0));
+                assertEquals(bound/2, matrix.get(2, 0));
+            }
+        }
+    }
+}
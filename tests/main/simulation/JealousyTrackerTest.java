@@ -0,0 +1,33 @@
+package main.simulation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JealousyTrackerTest {
+
+    @Test
+    @DisplayName("Tracked jealousy matches a full count after each switch")
+    public void trackedJealousyMatchesFullCount() {
+        ColonyGenerator generator = new ColonyGenerator(60, 15);
+        generator.setSeed(1);
+        Colony colony = Colony.of(generator.generate());
+        Assignment assignment = new Assignment(colony);
+        for(int s = 0; s < colony.size(); s++) assignment.affect(s, assignment.bestAvailable(s));
+        JealousyTracker tracker = new JealousyTracker(assignment);
+
+        Random random = new Random(2);
+        for(int i = 0; i < 500; i++) {
+            int p = random.nextInt(colony.size());
+            int[] enemies = colony.enemies(p);
+            int q = enemies.length > 0 && random.nextBoolean() ? enemies[random.nextInt(enemies.length)] : random.nextInt(colony.size());
+            if(p == q) continue;
+            tracker.swap(p, q);
+            assertEquals(assignment.getJealousNumber(), tracker.getJealousNumber());
+            for(int s = 0; s < colony.size(); s++) assertEquals(assignment.isJealous(s), tracker.isJealous(s));
+        }
+    }
+}
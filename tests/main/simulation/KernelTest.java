@@ -0,0 +1,120 @@
+package main.simulation;
+
+import main.model.Settler;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KernelTest {
+
+    @Test
+    @DisplayName("Settlers without bad relations are eliminated")
+    public void isolatedSettlersAreEliminated() {
+        Simulation simulation = new Simulation(3);
+        simulation.setSettlerPreferences("A1", "R1", "R2", "R3");
+        simulation.setSettlerPreferences("B1", "R1", "R2", "R3");
+        simulation.setSettlerPreferences("C1", "R1", "R2", "R3");
+        simulation.setBadRelations("A1", "B1");
+
+        Kernel kernel = Kernel.of(simulation);
+        assertEquals(1, kernel.getIsolatedCount());
+        assertEquals(0, kernel.getFixedCount());
+        assertEquals(2, kernel.getSettlers().size());
+        assertFalse(kernel.getSettlers().contains(simulation.getSettlersMap().get("C1")));
+    }
+
+    @Test
+    @DisplayName("A settler whose top choice is uncontested and ranked last by its enemies is fixed")
+    public void uncontestedTopChoiceIsFixed() {
+        Simulation simulation = new Simulation(2);
+        simulation.setSettlerPreferences("A1", "R2", "R1");
+        simulation.setSettlerPreferences("B1", "R1", "R2");
+        simulation.setBadRelations("A1", "B1");
+
+        Kernel kernel = Kernel.of(simulation);
+        assertEquals(2, kernel.getFixedCount());
+        assertTrue(kernel.getSettlers().isEmpty());
+
+        kernel.fix();
+        assertEquals("R2", simulation.getSettlersMap().get("A1").getAffectation().getName());
+        assertEquals("R1", simulation.getSettlersMap().get("B1").getAffectation().getName());
+        assertEquals(0, simulation.getJealousNumber());
+    }
+
+    @Test
+    @DisplayName("The fixed settlers keep their resource even if no instance runs")
+    public void fixedSettlersWithoutInstance() {
+        Simulation simulation = new Simulation(2);
+        simulation.setSettlerPreferences("A1", "R2", "R1");
+        simulation.setSettlerPreferences("B1", "R1", "R2");
+        simulation.setBadRelations("A1", "B1");
+
+        Dispatcher dispatcher = new Dispatcher(simulation);
+        dispatcher.kernelize();
+        dispatcher.maxLEFDispatch(0);
+        assertEquals("R2", simulation.getSettlersMap().get("A1").getAffectation().getName());
+        assertEquals("R1", simulation.getSettlersMap().get("B1").getAffectation().getName());
+    }
+
+    @Test
+    @DisplayName("The switch dispatch of an empty kernel still reports its end and caches its allocation")
+    public void emptyKernelSwitch() throws IOException {
+        Simulation simulation = new Simulation(2);
+        simulation.setSettlerPreferences("A1", "R2", "R1");
+        simulation.setSettlerPreferences("B1", "R1", "R2");
+        simulation.setBadRelations("A1", "B1");
+
+        Dispatcher dispatcher = new Dispatcher(simulation);
+        SolutionCache cache = new SolutionCache(Files.createTempDirectory("cache"), 4);
+        dispatcher.setSolutionCache(cache);
+        List<ProgressListener.Progress> reports = new ArrayList<>();
+        dispatcher.setProgressListener(reports::add, 0);
+        dispatcher.kernelize();
+        dispatcher.switchDispatch(10);
+        assertTrue(reports.get(reports.size()-1).done());
+        assertEquals(1, cache.size());
+        assertEquals(0, simulation.getJealousNumber());
+    }
+
+    @Test
+    @DisplayName("The switch dispatch of a kernel never moves the fixed settlers")
+    public void switchKeepsFixedSettlers() {
+        //A1 is fixed to R1, which E1 ranks last : E1 switching with A1 would make B1, C1 and D1 stop envying it
+        //(a switch of E1 with one of them is usually tried first, hence the many seeds)
+        Simulation simulation = new Simulation(5);
+        simulation.setSettlerPreferences("A1", "R1", "R2", "R3", "R4", "R5");
+        simulation.setSettlerPreferences("B1", "R2", "R5", "R3", "R4", "R1");
+        simulation.setSettlerPreferences("C1", "R2", "R4", "R3", "R5", "R1");
+        simulation.setSettlerPreferences("D1", "R2", "R3", "R4", "R5", "R1");
+        simulation.setSettlerPreferences("E1", "R2", "R3", "R4", "R5", "R1");
+        for(String enemy : new String[]{"A1", "B1", "C1", "D1"}) simulation.setBadRelations("E1", enemy);
+
+        for(long seed = 0; seed < 200; seed++) {
+            Dispatcher dispatcher = new Dispatcher(simulation);
+            assertEquals(1, dispatcher.kernelize().getFixedCount());
+            dispatcher.setSeed(seed);
+            simulation.clear();
+            dispatcher.switchDispatch(100);
+            assertEquals("R1", simulation.getSettlersMap().get("A1").getAffectation().getName());
+        }
+    }
+
+    @Test
+    @DisplayName("Kernelized dispatch affects every settler")
+    public void kernelizedDispatchEverySettler() {
+        Simulation simulation = Simulation.random(26, 5);
+        Dispatcher dispatcher = new Dispatcher(simulation);
+        dispatcher.kernelize();
+        dispatcher.maxLEFDispatch(26);
+        for(Settler settler : simulation.getSettlers()) {
+            assertNotNull(settler.getAffectation());
+            assertTrue(settler.getAffectation().isAffected());
+        }
+    }
+}
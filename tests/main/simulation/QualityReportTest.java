@@ -0,0 +1,96 @@
+package main.simulation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QualityReportTest {
+
+    private Simulation simulation(int topPreferences) {
+        ColonyGenerator generator = new ColonyGenerator(200, 40);
+        generator.setSeed(8);
+        if(topPreferences > 0) generator.setTopPreferences(topPreferences);
+        Simulation simulation = generator.generate();
+        new Dispatcher(simulation).linearDispatch();
+        return simulation;
+    }
+
+    private void checkStatistics(Simulation simulation) {
+        Colony colony = Colony.of(simulation);
+        int[] affectations = colony.affectations();
+        QualityReport report = new QualityReport(colony, affectations);
+
+        assertEquals(simulation.getJealousNumber(), report.getJealousNumber());
+        assertEquals(new Evaluator(colony).getJealousNumber(affectations), report.getJealousNumber());
+
+        int[] ranks = new int[colony.size()];
+        int pairs = 0;
+        for(int s = 0; s < colony.size(); s++) {
+            ranks[s] = colony.rank(s, affectations[s]) + 1;
+            assertEquals(ranks[s], report.getRank(s));
+            for(int enemy : report.getEnvied(s)) {
+                assertTrue(colony.rank(s, affectations[enemy]) < colony.rank(s, affectations[s]));
+            }
+            pairs += report.getEnviedCount(s);
+        }
+        assertEquals(pairs, report.getEnviedPairNumber());
+
+        Arrays.sort(ranks);
+        assertEquals(colony.size(), report.getAffectedNumber());
+        assertEquals(ranks[(ranks.length - 1) / 2], report.getMedianRank());
+        assertEquals(Arrays.stream(ranks).average().orElseThrow(), report.getMeanRank(), 1e-9);
+        assertEquals(ranks[ranks.length - 1], report.getMaxRank());
+        assertEquals(Arrays.stream(ranks).filter(rank -> rank == 1).count(), report.getTopChoiceNumber());
+        long counted = 0;
+        for(int rank = 1; rank <= report.getMaxRank(); rank++) counted += report.getRankCount(rank);
+        assertEquals(colony.size(), counted);
+    }
+
+    @Test
+    @DisplayName("The report agrees with the jealousy checks and the ranks of the affectations")
+    public void statistics() {
+        checkStatistics(simulation(0));
+        checkStatistics(simulation(10));
+    }
+
+    @Test
+    @DisplayName("Unaffected settlers have no rank and envy no one")
+    public void unaffected() {
+        Simulation simulation = simulation(0);
+        Colony colony = Colony.of(simulation);
+        int[] affectations = colony.affectations();
+        affectations[0] = -1;
+        QualityReport report = new QualityReport(colony, affectations);
+        assertEquals(colony.size() - 1, report.getAffectedNumber());
+        assertEquals(0, report.getRank(0));
+        assertEquals(0, report.getEnviedCount(0));
+
+        assertThrows(IllegalArgumentException.class, () -> new QualityReport(colony, new int[3]));
+    }
+
+    @Test
+    @DisplayName("The report is written as JSON and CSV")
+    public void export() throws IOException {
+        Simulation simulation = simulation(0);
+        QualityReport report = QualityReport.of(Colony.of(simulation));
+
+        StringWriter json = new StringWriter();
+        report.writeJson(json);
+        assertTrue(json.toString().contains("\"jealous\": " + report.getJealousNumber() + ","));
+        assertTrue(json.toString().contains("\"enviedPairs\": " + report.getEnviedPairNumber() + ","));
+        assertTrue(json.toString().contains("\"settler\": \"" + report.getColony().getSettler(0).getName() + "\""));
+
+        StringWriter csv = new StringWriter();
+        report.writeCsv(csv);
+        String[] lines = csv.toString().split("\n");
+        assertEquals("settler,resource,rank,envied", lines[0]);
+        assertEquals(report.getColony().size() + 1, lines.length);
+        assertTrue(lines[1].startsWith(report.getColony().getSettler(0).getName() + ","
+                + report.getColony().getResource(Colony.of(simulation).affectations()[0]).getName() + "," + report.getRank(0) + ","));
+    }
+}
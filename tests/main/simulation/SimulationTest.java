@@ -103,4 +103,56 @@ public class SimulationTest {
         assertNull(simulation.getSettlersMap().get("A1").getAffectation());
         assertNull(simulation.getSettlersMap().get("B1").getAffectation());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Identical orders of preference are shared")
+    public void identicalPreferencesAreShared() {
+        Simulation simulation = new Simulation(3);
+        simulation.setSettlerPreferences("A1", "R1", "R2", "R3");
+        simulation.setSettlerPreferences("B1", "R1", "R2", "R3");
+        simulation.setSettlerPreferences("C1", "R2", "R1", "R3");
+        Map<String, Settler> settlers = simulation.getSettlersMap();
+        assertSame(settlers.get("A1").getPreferenceOrder(), settlers.get("B1").getPreferenceOrder());
+        assertNotSame(settlers.get("A1").getPreferenceOrder(), settlers.get("C1").getPreferenceOrder());
+        assertEquals(2, simulation.getPreferenceOrderCount());
+
+        Colony colony = Colony.of(simulation);
+        int a = colony.indexOf(settlers.get("A1")), b = colony.indexOf(settlers.get("B1"));
+        for(int r = 0; r < 3; r++) assertEquals(colony.rank(a, r), colony.rank(b, r));
+    }
+
+    @Test
+    @DisplayName("The rank matrices are sized from the rows of the distinct orders")
+    public void rankMatricesSize() {
+        ColonyGenerator generator = new ColonyGenerator(300, 10);
+        generator.setPreferenceModel(PreferenceModel.mallows(0));
+        Settler[] settlers = generator.generate().getSettlers().toArray(Settler[]::new);
+        assertEquals(300 * 2, Colony.rankBytes(settlers, 300)); //a single order, of 300 char ranks
+
+        generator.setTopPreferences(5);
+        settlers = generator.generate().getSettlers().toArray(Settler[]::new);
+        assertEquals(2 * 5 * 2, Colony.rankBytes(settlers, 300)); //ranks and ranked resources
+    }
+
+    @Test
+    @DisplayName("An order of preference no settler uses anymore is released")
+    public void replacedPreferencesAreReleased() {
+        Simulation simulation = new Simulation(3);
+        simulation.setSettlerPreferences("A1", "R1", "R2", "R3");
+        simulation.setSettlerPreferences("B1", "R1", "R2", "R3");
+        simulation.setSettlerPreferences("C1", "R2", "R1", "R3");
+        assertEquals(2, simulation.getPreferenceOrderCount());
+
+        simulation.setSettlerPreferences("C1", "R3", "R2", "R1"); //the order of C1 is released
+        assertEquals(2, simulation.getPreferenceOrderCount());
+        simulation.setSettlerPreferences("A1", "R3", "R2", "R1"); //still used by B1
+        assertEquals(2, simulation.getPreferenceOrderCount());
+        simulation.setSettlerPreferences("B1", "R3", "R2", "R1");
+        assertEquals(1, simulation.getPreferenceOrderCount());
+        simulation.setSettlerPreferences("B1", "R3", "R2", "R1"); //set again with the same order
+        assertEquals(1, simulation.getPreferenceOrderCount());
+
+        Map<String, Settler> settlers = simulation.getSettlersMap();
+        assertSame(settlers.get("A1").getPreferenceOrder(), settlers.get("C1").getPreferenceOrder());
+    }
+}
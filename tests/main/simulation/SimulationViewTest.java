@@ -0,0 +1,81 @@
+package main.simulation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationViewTest {
+
+    private Simulation simulation(int n) {
+        return simulation(n, 10);
+    }
+
+    private Simulation simulation(int n, int d) {
+        ColonyGenerator generator = new ColonyGenerator(n, d);
+        generator.setSeed(7);
+        Simulation simulation = generator.generate();
+        new Dispatcher(simulation).linearDispatch();
+        return simulation;
+    }
+
+    private String output(Runnable view) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer));
+        try {
+            view.run();
+        } finally {
+            System.setOut(out);
+        }
+        return buffer.toString();
+    }
+
+    @Test
+    @DisplayName("A large colony is summarized and browsed by pages")
+    public void summaryAndPages() {
+        SimulationView view = new SimulationView(simulation(1000));
+        String summary = output(view::showSettlers);
+        assertTrue(summary.contains("1000 settlers"));
+        assertTrue(summary.contains("(page 1/40)"));
+        assertTrue(summary.lines().count() < 40);
+
+        assertEquals(40, view.getPageCount());
+        assertTrue(output(() -> view.showPage(39)).contains("(page 40/40)"));
+        assertThrows(IllegalArgumentException.class, () -> view.showPage(40));
+        assertThrows(IllegalArgumentException.class, () -> view.showPage(-1));
+    }
+
+    @Test
+    @DisplayName("The jealous settlers are counted, and only the first ones are listed, or the most jealous ones")
+    public void jealous() {
+        Simulation simulation = simulation(1000, 40);
+        SimulationView view = new SimulationView(simulation);
+        String jealous = output(view::showJealous);
+        assertTrue(jealous.contains("There are " + simulation.getJealousNumber() + " jealous settlers"));
+        assertTrue(simulation.getJealousNumber() > SimulationView.SUMMARY_THRESHOLD);
+        assertTrue(jealous.lines().count() < SimulationView.SUMMARY_THRESHOLD);
+        assertTrue(jealous.contains("... and " + (simulation.getJealousNumber() - SimulationView.TOP_JEALOUS) + " other jealous settlers"));
+        assertEquals(simulation.getJealousNumber(), view.getReport().getJealousNumber());
+        assertSame(view.getReport(), view.getReport());
+        assertEquals(Math.min(3, simulation.getJealousNumber()), output(() -> view.showTopJealous(3)).lines()
+                .filter(line -> line.contains("is jealous of")).count());
+    }
+
+    @Test
+    @DisplayName("A small colony is printed in full, and the dump writes every settler")
+    public void fullOutput() {
+        Simulation simulation = simulation(20);
+        SimulationView view = new SimulationView(simulation);
+        String settlers = output(view::showSettlers);
+        simulation.getSettlers().forEach(settler -> assertTrue(settlers.contains(settler.toString())));
+
+        StringWriter dump = new StringWriter();
+        view.write(dump);
+        assertEquals(20, dump.toString().lines().count());
+    }
+}
@@ -0,0 +1,178 @@
+package main.simulation;
+
+import main.metrics.MetricsRecorder;
+import main.model.Resource;
+import main.model.Settler;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SolutionCacheTest {
+
+    private Colony colony(long seed) {
+        ColonyGenerator generator = new ColonyGenerator(60, 20);
+        generator.setSeed(seed);
+        return Colony.of(generator.generate());
+    }
+
+    private int[] greedy(Colony colony, int first) {
+        Assignment assignment = new Assignment(colony);
+        for(int i = 0; i < colony.size(); i++) {
+            int s = (i + first) % colony.size();
+            assignment.affect(s, assignment.bestAvailable(s));
+        }
+        int[] snapshot = new int[colony.size()];
+        assignment.snapshot(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Builds the same small colony, declaring its settlers and resources in the specified order.
+     */
+    private Simulation declared(int[] order) {
+        Map<String, Settler> settlers = new LinkedHashMap<>();
+        Map<String, Resource> resources = new LinkedHashMap<>();
+        for(int i : order) {
+            settlers.put(Simulation.settlerName(i), new Settler(Simulation.settlerName(i), order.length));
+            resources.put(Simulation.resourceName(i), new Resource(Simulation.resourceName(i)));
+        }
+        Simulation simulation = new Simulation(settlers, resources);
+        for(int i = 0; i < order.length; i++) {
+            String[] preferences = new String[order.length];
+            for(int rank = 0; rank < order.length; rank++) preferences[rank] = Simulation.resourceName((i + rank) % order.length);
+            simulation.setSettlerPreferences(Simulation.settlerName(i), preferences);
+            simulation.setBadRelations(Simulation.settlerName(i), Simulation.settlerName((i + 1) % order.length));
+        }
+        return simulation;
+    }
+
+    @Test
+    @DisplayName("The key only depends on the content of the colony, not on the order it was declared in")
+    public void canonicalKey() throws IOException {
+        assertEquals(SolutionCache.key(colony(1)), SolutionCache.key(colony(1)));
+        assertNotEquals(SolutionCache.key(colony(1)), SolutionCache.key(colony(2)));
+
+        Simulation simulation = declared(new int[]{0, 1, 2, 3, 4, 5});
+        Simulation reversed = declared(new int[]{5, 4, 3, 2, 1, 0});
+        Colony colony = Colony.of(simulation), other = Colony.of(reversed);
+        assertNotEquals(colony.getSettler(0).getName(), other.getSettler(0).getName());
+        assertEquals(SolutionCache.key(colony), SolutionCache.key(other));
+
+        //an allocation stored from a colony is read back for the same settlers from the other one
+        SolutionCache cache = new SolutionCache(Files.createTempDirectory("cache"), 4);
+        new Dispatcher(simulation).linearDispatch();
+        assertTrue(cache.put(SolutionCache.key(colony), colony, colony.affectations()));
+        other.apply(cache.get(SolutionCache.key(other), other));
+        for(Settler settler : simulation.getSettlers()) {
+            assertEquals(settler.getAffectation().getName(), reversed.getSettlersMap().get(settler.getName()).getAffectation().getName());
+        }
+    }
+
+    @Test
+    @DisplayName("An entry keeps the best allocation, and an invalid entry is removed")
+    public void storeAndVerify() throws IOException {
+        Path directory = Files.createTempDirectory("cache");
+        SolutionCache cache = new SolutionCache(directory, 4);
+        Colony colony = colony(3);
+        String key = SolutionCache.key(colony);
+        Evaluator evaluator = new Evaluator(colony);
+
+        assertNull(cache.get(key, colony));
+        int[] best = null;
+        for(int first = 0; first < colony.size(); first += 7) {
+            int[] allocation = greedy(colony, first);
+            boolean better = best == null || evaluator.getJealousNumber(allocation) < evaluator.getJealousNumber(best);
+            assertEquals(better, cache.put(key, colony, allocation));
+            if(better) best = allocation;
+        }
+        assertArrayEquals(best, cache.get(key, colony));
+
+        //an entry written for another colony of the same size is not used
+        Colony other = colony(4);
+        Files.copy(directory.resolve(key + ".sol"), directory.resolve(SolutionCache.key(other) + ".sol"));
+        assertNull(cache.get(SolutionCache.key(other), other));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    @DisplayName("The least recently used entries are removed when the cache is full")
+    public void leastRecentlyUsedEviction() throws IOException {
+        Path directory = Files.createTempDirectory("cache");
+        SolutionCache cache = new SolutionCache(directory, 2);
+        Colony colony = colony(5);
+        int[] allocation = greedy(colony, 0);
+
+        cache.put("a", colony, allocation);
+        cache.put("b", colony, allocation);
+        Files.setLastModifiedTime(directory.resolve("a.sol"), FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(directory.resolve("b.sol"), FileTime.fromMillis(2000));
+        assertNotNull(cache.get("a", colony)); //"a" is now the most recently used
+        cache.put("c", colony, allocation);
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a", colony));
+        assertNull(cache.get("b", colony));
+        assertNotNull(cache.get("c", colony));
+    }
+
+    @Test
+    @DisplayName("A dispatch of a cached colony applies the cached allocation")
+    public void dispatchFromCache() throws IOException {
+        ColonyGenerator generator = new ColonyGenerator(60, 20);
+        generator.setSeed(6);
+        Simulation simulation = generator.generate();
+        SolutionCache cache = new SolutionCache(Files.createTempDirectory("cache"), 4);
+
+        Dispatcher dispatcher = new Dispatcher(simulation);
+        dispatcher.setSolutionCache(cache);
+        dispatcher.maxLEFDispatch(30);
+        int[] solved = Colony.of(simulation).affectations();
+        assertEquals(1, cache.size());
+
+        //without a seed, a new dispatch would give another allocation : the cached one is applied
+        simulation.clear();
+        Dispatcher other = new Dispatcher(simulation);
+        other.setSolutionCache(cache);
+        other.maxLEFDispatch(30);
+        assertArrayEquals(solved, Colony.of(simulation).affectations());
+    }
+
+    @Test
+    @DisplayName("A dispatch run again competes with the cached allocation, whatever its parameters")
+    public void dispatchAgain() throws IOException {
+        ColonyGenerator generator = new ColonyGenerator(60, 20);
+        generator.setSeed(6);
+        Simulation simulation = generator.generate();
+        SolutionCache cache = new SolutionCache(Files.createTempDirectory("cache"), 4);
+
+        Dispatcher dispatcher = new Dispatcher(simulation);
+        dispatcher.setSolutionCache(cache);
+        dispatcher.setSeed(1);
+        dispatcher.maxLEFDispatch(1);
+        String key = SolutionCache.key(Colony.of(simulation));
+        int cached = simulation.getJealousNumber();
+
+        //another algorithm applies the allocation of the colony, then runs when asked again
+        Dispatcher other = new Dispatcher(simulation);
+        other.setSolutionCache(cache);
+        MetricsRecorder metrics = new MetricsRecorder();
+        other.setMetrics(metrics);
+        for(int run = 0; run < 3; run++) {
+            simulation.clear();
+            other.switchDispatch(200);
+            cached = Math.min(cached, simulation.getJealousNumber());
+            Colony colony = Colony.of(simulation);
+            assertEquals(cached, new Evaluator(colony).getJealousNumber(cache.get(key, colony)));
+        }
+        assertEquals(1, metrics.getCounter("cache.hits"));
+        assertEquals(1, cache.size());
+    }
+}
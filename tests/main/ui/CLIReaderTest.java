@@ -4,6 +4,10 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.NoSuchElementException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -63,4 +67,37 @@ public class CLIReaderTest {
             assertEquals(4, cliReader.readInteger());
         }
     }
+
+    @Test
+    @DisplayName("Poll the input while nothing is typed, then read the typed lines")
+    public void pollInput() throws IOException {
+        PipedOutputStream output = new PipedOutputStream();
+        try(CLIReader cliReader = new CLIReader(new PipedInputStream(output))) {
+            assertNull(cliReader.pollInput(50));
+            output.write("stop\n\n4\n".getBytes());
+            output.flush();
+            assertEquals("stop", cliReader.pollInput(5000));
+            assertEquals(4, cliReader.readInteger());
+            output.close();
+            assertThrowsExactly(NoSuchElementException.class, () -> cliReader.pollInput(5000));
+        }
+    }
+
+    @Test
+    @DisplayName("Polling 'quit' closes the reader at once, while the next line is being read")
+    public void pollQuit() throws IOException, InterruptedException {
+        PipedOutputStream output = new PipedOutputStream();
+        CLIReader cliReader = new CLIReader(new PipedInputStream(output)); //closed by 'quit'
+        try {
+            output.write("quit\n".getBytes());
+            output.flush();
+            Thread menu = new Thread(() -> assertEquals("quit", cliReader.pollInput(5000)));
+            menu.start();
+            menu.join(2000); //the read-ahead thread is now blocked, waiting for the next line
+            assertFalse(menu.isAlive());
+            assertFalse(cliReader.isOpen());
+        } finally {
+            output.close(); //ends the read-ahead thread
+        }
+    }
 }